@@ -2,11 +2,11 @@ import {type AxiosResponse } from 'axios';
 import type { MinimalProduct, Product, ResponseArray } from '../types';
 import { api } from '../api/axiosInstance';
 export function getProducts(page: number, size: number): Promise<ResponseArray<Product>> {
-    return api.get(`${import.meta.env.VITE_API}/products?page=${page}&size=${size}`);
+    return api.get(`${import.meta.env.VITE_API}/products?view=summary&page=${page}&size=${size}`);
 }
 
 export function getProductsbyShop(shopId: string, page: number, size: number): Promise<ResponseArray<Product>> {
-    return api.get(`${import.meta.env.VITE_API}/products?shopId=${shopId}&page=${page}&size=${size}`);
+    return api.get(`${import.meta.env.VITE_API}/products?view=summary&shopId=${shopId}&page=${page}&size=${size}`);
 }
 
 export function getProductsbyShopAndCategory(
@@ -16,7 +16,7 @@ export function getProductsbyShopAndCategory(
     size: number,
 ): Promise<ResponseArray<Product>> {
     return api.get(
-        `${import.meta.env.VITE_API}/products?shopId=${shopId}&categoryId=${categoryId}&page=${page}&size=${size}`,
+        `${import.meta.env.VITE_API}/products?view=summary&shopId=${shopId}&categoryId=${categoryId}&page=${page}&size=${size}`,
     );
 }
 
@@ -1,7 +1,7 @@
 import type { MinimalShop } from './../types/shop';
 import {type AxiosResponse } from 'axios';
 import { api } from '../api/axiosInstance';
-import type { Shop } from '../types';
+import type { Shop, ShopSuggestion } from '../types';
 import type { ResponseArray } from '../types/response';
 
 export function getShops(page: number, size: number): Promise<ResponseArray<Shop>> {
@@ -23,6 +23,10 @@ export function searchShops(page: number, size: number, q: string, filters: stri
     );
 }
 
+export function suggestShops(q: string, size: number = 10): Promise<AxiosResponse<ShopSuggestion[]>> {
+    return api.get(`${import.meta.env.VITE_API}/shops/suggest?q=${encodeURIComponent(q)}&size=${size}`);
+}
+
 export function getShopsWithParams(queryString: string): Promise<ResponseArray<Shop>> {
     return api.get(`${import.meta.env.VITE_API}/shops?${queryString}`);
 }
@@ -2,7 +2,7 @@ import type {Category, MinimalCategory} from './category';
 import type {OpeningHours} from './openingHours';
 import type { LocalizedProduct, MinimalLocalizedProduct, Product, MinimalProduct, FormattedProduct } from './product';
 import type { ResponseArray } from './response';
-import type { Shop, MinimalShop } from './shop';
+import type { Shop, MinimalShop, ShopSuggestion } from './shop';
 import type {Toast} from './toast';
 import type {ObjectPropertyString} from './utils';
 
@@ -19,5 +19,6 @@ export type {
     Product,
     ResponseArray,
     Shop,
+    ShopSuggestion,
     Toast,
 };
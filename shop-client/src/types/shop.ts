@@ -16,3 +16,8 @@ export type MinimalShop = {
     inVacations: boolean;
     openingHours: { day: number; openAt: string; closeAt: string }[];
 };
+
+export type ShopSuggestion = {
+    id: number;
+    name: string;
+};
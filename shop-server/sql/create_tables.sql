@@ -1,6 +1,7 @@
 create table categories (
     id int8 not null,
     name varchar(255) not null,
+    version int8 not null default 0,
     primary key (id)
 );
 
@@ -24,6 +25,7 @@ create table products (
     id int8 not null,
     price float4 not null,
     shop_id int8,
+    version int8 not null default 0,
     primary key (id)
 );
 
@@ -42,9 +44,14 @@ create table shops (
     created_at date not null,
     in_vacations boolean not null,
     name varchar(255) not null,
+    nb_products int8 not null default 0,
+    nb_categories int8 not null default 0,
+    version int8 not null default 0,
     primary key (id)
 );
 
+create index idx_shops_nb_products on shops (nb_products desc, id);
+
 create table shops_opening_hours (
     shop_id int8 not null,
     opening_hours_id int8 not null
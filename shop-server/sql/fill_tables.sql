@@ -716,6 +716,13 @@ insert into products_localized_product (product_id, localized_product_id) values
 insert into products_categories (product_id, category_id) values (292, 45);
 
 
+-- Shop counters --
+
+update shops s set
+    nb_products = (select count(*) from products p where p.shop_id = s.id),
+    nb_categories = (select count(distinct pc.category_id) from products_categories pc
+                     join products p on pc.product_id = p.id where p.shop_id = s.id);
+
 -- Hibernate Sequence --
 
-create sequence hibernate_sequence start 295 increment 1;
\ No newline at end of file
+create sequence hibernate_sequence start 295 increment 50;
\ No newline at end of file
@@ -0,0 +1,50 @@
+package fr.fullstack.shopapp.benchmark;
+
+import fr.fullstack.shopapp.util.ErrorValidation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.validation.Errors;
+import org.springframework.validation.MapBindingResult;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction du message d'erreur des réponses 400 (concaténation des messages de validation).
+ * 100 erreurs correspond à un import ou un corps de requête largement invalide.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorValidationBenchmark {
+
+    @Param({"1", "5", "100"})
+    private int errorCount;
+
+    private Errors errors;
+
+    @Setup
+    public void setUp() {
+        errors = new MapBindingResult(new HashMap<>(), "product");
+        for (int i = 0; i < errorCount; i++) {
+            errors.rejectValue("field" + i, "invalid", "Field " + i + " must not be blank");
+        }
+    }
+
+    @Benchmark
+    public String errorMessage() {
+        return ErrorValidation.getErrorValidationMessage(errors);
+    }
+}
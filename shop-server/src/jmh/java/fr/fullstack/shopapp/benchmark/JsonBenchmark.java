@@ -0,0 +1,124 @@
+package fr.fullstack.shopapp.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.fullstack.shopapp.model.Product;
+import fr.fullstack.shopapp.model.Shop;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sérialisation des pages de produits / boutiques telles que renvoyées par les contrôleurs,
+ * et lecture des corps de requête (dont la conversion du prix en euros vers les centimes, setPrice(double)).
+ * Le mapper est configuré comme celui de Spring Boot (Jackson2ObjectMapperBuilder).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+    private static final TypeReference<List<Product>> PRODUCTS = new TypeReference<>() {
+    };
+
+    private static final TypeReference<List<Shop>> SHOPS = new TypeReference<>() {
+    };
+
+    // Taille de page (20 par défaut côté client)
+    @Param({"20", "100"})
+    private int size;
+
+    private ObjectMapper mapper;
+
+    private String productsJson;
+
+    private String shopsJson;
+
+    private Page<Product> productPage;
+
+    private Page<Shop> shopPage;
+
+    @Setup
+    public void setUp() throws Exception {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+
+        List<String> products = new ArrayList<>();
+        List<String> shops = new ArrayList<>();
+        for (int i = 1; i <= size; i++) {
+            products.add(productJson(i));
+            shops.add(shopJson(i));
+        }
+        productsJson = "[" + String.join(",", products) + "]";
+        shopsJson = "[" + String.join(",", shops) + "]";
+
+        PageRequest pageable = PageRequest.of(0, size);
+        productPage = new PageImpl<>(mapper.readValue(productsJson, PRODUCTS), pageable, size * 10L);
+        shopPage = new PageImpl<>(mapper.readValue(shopsJson, SHOPS), pageable, size * 10L);
+    }
+
+    @Benchmark
+    public String serializeProductPage() throws Exception {
+        return mapper.writeValueAsString(productPage);
+    }
+
+    @Benchmark
+    public String serializeShopPage() throws Exception {
+        return mapper.writeValueAsString(shopPage);
+    }
+
+    @Benchmark
+    public List<Product> deserializeProducts() throws Exception {
+        return mapper.readValue(productsJson, PRODUCTS);
+    }
+
+    @Benchmark
+    public List<Shop> deserializeShops() throws Exception {
+        return mapper.readValue(shopsJson, SHOPS);
+    }
+
+    // Prix en euros avec décimales : passe par setPrice(double)
+    private static String productJson(int i) {
+        return """
+                {"price": %d.99, "shop": {"id": %d, "name": "Boutique %d", "inVacations": false},
+                 "categories": [{"id": %d, "name": "Catégorie %d"}, {"id": %d, "name": "Catégorie %d"}],
+                 "localizedProducts": [
+                   {"locale": "FR", "name": "Produit %d", "description": "Description du produit %d"},
+                   {"locale": "EN", "name": "Product %d", "description": "Description of product %d"}]}
+                """.formatted(i, i % 10, i % 10, i % 5, i % 5, i % 7 + 5, i % 7 + 5, i, i, i, i);
+    }
+
+    private static String shopJson(int i) {
+        StringBuilder openingHours = new StringBuilder();
+        for (int day = 1; day <= 6; day++) {
+            if (day > 1) {
+                openingHours.append(",");
+            }
+            openingHours.append("""
+                    {"day": %d, "openAt": "09:00:00", "closeAt": "12:30:00"},
+                    {"day": %d, "openAt": "14:00:00", "closeAt": "19:00:00"}""".formatted(day, day));
+        }
+        return """
+                {"id": %d, "name": "Boutique %d", "createdAt": "2024-0%d-15", "inVacations": %b,
+                 "nbProducts": %d, "nbCategories": %d, "openingHours": [%s]}
+                """.formatted(i, i, i % 9 + 1, i % 4 == 0, i * 3L, i % 5L, openingHours);
+    }
+}
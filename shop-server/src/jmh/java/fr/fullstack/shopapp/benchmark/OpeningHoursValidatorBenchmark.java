@@ -0,0 +1,81 @@
+package fr.fullstack.shopapp.benchmark;
+
+import fr.fullstack.shopapp.model.OpeningHoursShop;
+import fr.fullstack.shopapp.validation.OpeningHoursValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contrôle de chevauchement des horaires (comparaison deux à deux). Les plages valides sont le pire cas :
+ * toutes les paires sont examinées. Elles sont mélangées pour ne pas favoriser un ordre de saisie.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OpeningHoursValidatorBenchmark {
+
+    // Plages par jour, sur 7 jours
+    @Param({"1", "2", "4", "16"})
+    private int slotsPerDay;
+
+    private final OpeningHoursValidator validator = new OpeningHoursValidator();
+
+    private List<OpeningHoursShop> validHours;
+
+    private List<OpeningHoursShop> overlappingHours;
+
+    @Setup
+    public void setUp() {
+        validHours = new ArrayList<>();
+        int minutes = 24 * 60 / slotsPerDay;
+        for (int day = 1; day <= 7; day++) {
+            for (int slot = 0; slot < slotsPerDay; slot++) {
+                LocalTime openAt = LocalTime.MIDNIGHT.plusMinutes((long) slot * minutes);
+                validHours.add(hours(day, openAt, openAt.plusMinutes(minutes - 1)));
+            }
+        }
+        Collections.shuffle(validHours, new Random(42));
+
+        // Conflit en fin de liste : détecté après presque toutes les comparaisons
+        overlappingHours = new ArrayList<>(validHours);
+        OpeningHoursShop last = validHours.get(validHours.size() - 1);
+        overlappingHours.add(hours((int) last.getDay(), last.getOpenAt(), last.getCloseAt()));
+    }
+
+    @Benchmark
+    public boolean valid() {
+        return validator.isValid(validHours, null);
+    }
+
+    @Benchmark
+    public boolean overlapping() {
+        return validator.isValid(overlappingHours, null);
+    }
+
+    private static OpeningHoursShop hours(int day, LocalTime openAt, LocalTime closeAt) {
+        OpeningHoursShop hours = new OpeningHoursShop();
+        hours.setDay(day);
+        hours.setOpenAt(openAt);
+        hours.setCloseAt(closeAt);
+        return hours;
+    }
+}
@@ -0,0 +1,57 @@
+package fr.fullstack.shopapp.benchmark;
+
+import fr.fullstack.shopapp.model.LocalizedProduct;
+import fr.fullstack.shopapp.validation.StringEnumeration;
+import fr.fullstack.shopapp.validation.StringEnumerationValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation de la langue des traductions (@StringEnumeration sur LocalizedProduct.locale), avec l'annotation
+ * réelle du modèle. initialize() n'est appelé qu'une fois par Hibernate Validator, isValid() à chaque traduction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringEnumerationValidatorBenchmark {
+
+    private StringEnumeration annotation;
+
+    private StringEnumerationValidator validator;
+
+    @Setup
+    public void setUp() throws Exception {
+        annotation = LocalizedProduct.class.getDeclaredField("locale").getAnnotation(StringEnumeration.class);
+        validator = new StringEnumerationValidator();
+        validator.initialize(annotation);
+    }
+
+    @Benchmark
+    public boolean knownValue() {
+        return validator.isValid("EN", null);
+    }
+
+    @Benchmark
+    public boolean unknownValue() {
+        return validator.isValid("DE", null);
+    }
+
+    @Benchmark
+    public Set<String> namesSet() {
+        return StringEnumerationValidator.getNamesSet(annotation.enumClass());
+    }
+}
@@ -0,0 +1,114 @@
+package fr.fullstack.shopapp.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.sql.Connection;
+import java.sql.Statement;
+
+/**
+ * Jeu de données volumineux généré en SQL (generate_series) : le schéma est celui de sql/create_tables.sql,
+ * comme pour docker-compose, puis schema.sql est appliqué au démarrage de l'application (prix en centimes, index).
+ * Chaque boutique a 12 plages horaires, chaque produit 2 catégories et 2 traductions (FR, EN).
+ */
+final class DatasetGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatasetGenerator.class);
+
+    private static final String CREATE_TABLES = "sql/create_tables.sql";
+
+    private static final int OPENING_HOURS_PER_SHOP = 12;
+
+    private static final int LOCALES_PER_PRODUCT = 2;
+
+    private DatasetGenerator() {
+    }
+
+    static void generate(Connection connection, LoadTestSettings settings) throws Exception {
+        long start = System.nanoTime();
+        ScriptUtils.executeSqlScript(connection, new FileSystemResource(CREATE_TABLES));
+
+        // Plages d'ids disjointes : toutes les entités partagent hibernate_sequence
+        long categories = settings.categories();
+        long shops = settings.shops();
+        long products = shops * settings.productsPerShop();
+        long shopBase = categories;
+        long productBase = shopBase + shops;
+        long openingHoursBase = productBase + products;
+        long localizedBase = openingHoursBase + shops * OPENING_HOURS_PER_SHOP;
+        long nextId = localizedBase + products * LOCALES_PER_PRODUCT + 1;
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    INSERT INTO categories (id, name)
+                    SELECT c, (ARRAY['Épicerie', 'Librairie', 'Jouets', 'Jardin', 'Sport', 'Mode', 'Maison',
+                                     'Musique'])[1 + c %% 8] || ' ' || c
+                    FROM generate_series(1, %d) c""".formatted(categories));
+
+            statement.execute("""
+                    INSERT INTO shops (id, name, created_at, in_vacations)
+                    SELECT %d + s, (ARRAY['Boutique', 'Comptoir', 'Atelier', 'Maison', 'Bazar', 'Marché'])[1 + s %% 6]
+                                   || ' ' || (ARRAY['du Centre', 'des Halles', 'du Port', 'de la Gare', 'Saint-Michel',
+                                                    'des Arts', 'du Parc'])[1 + s %% 7] || ' ' || s,
+                           DATE '2010-01-01' + (s * 37 %% 5000), s %% 10 = 0
+                    FROM generate_series(1, %d) s""".formatted(shopBase, shops));
+
+            // Du lundi au samedi, 09:00-12:30 et 14:00-19:00
+            statement.execute("""
+                    INSERT INTO opening_hours (id, day, open_at, close_at)
+                    SELECT %d + (s - 1) * %d + (d - 1) * 2 + slot + 1, d,
+                           CASE slot WHEN 0 THEN TIME '09:00' ELSE TIME '14:00' END,
+                           CASE slot WHEN 0 THEN TIME '12:30' ELSE TIME '19:00' END
+                    FROM generate_series(1, %d) s, generate_series(1, 6) d, generate_series(0, 1) slot"""
+                    .formatted(openingHoursBase, OPENING_HOURS_PER_SHOP, shops));
+            statement.execute("""
+                    INSERT INTO shops_opening_hours (shop_id, opening_hours_id)
+                    SELECT %d + (id - %d - 1) / %d + 1, id FROM opening_hours"""
+                    .formatted(shopBase, openingHoursBase, OPENING_HOURS_PER_SHOP));
+
+            // Prix en euros (float4) : convertis en centimes par schema.sql au démarrage
+            statement.execute("""
+                    INSERT INTO products (id, price, shop_id)
+                    SELECT %d + p, (p * 7919 %% 20000) / 100.0 + 0.5, %d + (p - 1) / %d + 1
+                    FROM generate_series(1, %d) p"""
+                    .formatted(productBase, shopBase, settings.productsPerShop(), products));
+            statement.execute("""
+                    INSERT INTO products_categories (product_id, category_id)
+                    SELECT DISTINCT %d + p, category
+                    FROM generate_series(1, %d) p,
+                         LATERAL (VALUES (1 + p %% %d), (1 + p * 31 %% %d)) AS categories(category)"""
+                    .formatted(productBase, products, categories, categories));
+
+            statement.execute("""
+                    INSERT INTO localized_product (id, locale, name, description)
+                    SELECT %d + (p - 1) * 2 + l + 1,
+                           CASE l WHEN 0 THEN 'FR' ELSE 'EN' END,
+                           CASE l WHEN 0 THEN 'Produit ' ELSE 'Product ' END
+                               || (ARRAY['café', 'thé', 'livre', 'ballon', 'lampe', 'chaise', 'vase', 'disque'])[1 + p %% 8]
+                               || ' ' || p,
+                           CASE l WHEN 0 THEN 'Description du produit ' ELSE 'Description of product ' END || p
+                    FROM generate_series(1, %d) p, generate_series(0, 1) l"""
+                    .formatted(localizedBase, products));
+            statement.execute("""
+                    INSERT INTO products_localized_product (product_id, localized_product_id)
+                    SELECT %d + (id - %d - 1) / 2 + 1, id FROM localized_product"""
+                    .formatted(productBase, localizedBase));
+
+            statement.execute("""
+                    UPDATE shops s SET nb_products = c.nb_products, nb_categories = c.nb_categories
+                    FROM (SELECT p.shop_id, COUNT(DISTINCT p.id) AS nb_products,
+                                 COUNT(DISTINCT pc.category_id) AS nb_categories
+                          FROM products p LEFT JOIN products_categories pc ON pc.product_id = p.id
+                          GROUP BY p.shop_id) c
+                    WHERE c.shop_id = s.id""");
+
+            statement.execute("CREATE SEQUENCE IF NOT EXISTS hibernate_sequence START WITH %d INCREMENT BY 50"
+                    .formatted(nextId));
+            statement.execute("ANALYZE");
+        }
+        logger.info("Load test dataset: {} shops, {} products, {} categories generated in {} s",
+                shops, products, categories, String.format("%.1f", (System.nanoTime() - start) / 1e9));
+    }
+}
@@ -0,0 +1,93 @@
+package fr.fullstack.shopapp.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Charge en boucle ouverte à débit d'arrivée fixe : la requête n est émise à t0 + n / rate quel que soit
+ * le temps de réponse des précédentes, chacune sur son thread virtuel. La latence est mesurée depuis
+ * l'instant d'émission prévu, si bien qu'un serveur saturé (ou un générateur en retard) allonge la queue
+ * de distribution au lieu de ralentir le tir (pas d'omission coordonnée).
+ */
+final class LoadGenerator {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient client;
+
+    private final URI baseUri;
+
+    private final Workload workload;
+
+    private final double rate;
+
+    LoadGenerator(URI baseUri, Workload workload, double rate) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.baseUri = baseUri;
+        this.workload = workload;
+        this.rate = rate;
+    }
+
+    // Les réponses de la période de chauffe ne sont pas comptées
+    LoadTestReport run(Duration warmup, Duration duration) {
+        LoadTestReport report = new LoadTestReport(workload.endpoints(), rate, duration);
+        Random random = new Random(42);
+        long interval = Math.round(1e9 / rate);
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long n = 0; ; n++) {
+                long intendedStart = start + n * interval;
+                if (intendedStart >= end) {
+                    break;
+                }
+                long wait = intendedStart - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                Workload.Request request = workload.next(random);
+                boolean measured = intendedStart >= measureFrom;
+                executor.execute(() -> send(request, intendedStart, measured ? report : null));
+            }
+        }
+        return report;
+    }
+
+    private void send(Workload.Request request, long intendedStart, LoadTestReport report) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(baseUri.resolve(request.path()))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Accept", "application/json");
+        if (request.body() != null) {
+            builder.header("Content-Type", Workload.MERGE_PATCH)
+                    .method(request.method(), HttpRequest.BodyPublishers.ofString(request.body()));
+        } else {
+            builder.method(request.method(), HttpRequest.BodyPublishers.noBody());
+        }
+
+        int status;
+        try {
+            status = client.send(builder.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            // Délai dépassé, connexion refusée... : comptée en erreur
+            status = LoadTestReport.NO_RESPONSE;
+        }
+        if (report != null) {
+            report.record(request.endpoint(), status, System.nanoTime() - intendedStart);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package fr.fullstack.shopapp.loadtest;
+
+import fr.fullstack.shopapp.ShopAppApplication;
+import fr.fullstack.shopapp.service.SearchIndexStatus;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Tir de charge de bout en bout sans docker-compose : PostgreSQL embarqué (ou base locale existante),
+ * backend de recherche Lucene dans un répertoire temporaire, application démarrée dans le même processus
+ * sur un port libre, puis charge à débit fixe sur /api/v1/shops, /products et /categories.
+ * Lancement : ./mvnw -Ploadtest test-compile exec:exec (voir le README pour les paramètres).
+ */
+public final class LoadTestHarness {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestHarness.class);
+
+    private LoadTestHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        EmbeddedPostgres postgres = null;
+        ConfigurableApplicationContext application = null;
+        try {
+            String jdbcUrl = settings.jdbcUrl();
+            if (jdbcUrl == null) {
+                postgres = EmbeddedPostgres.builder().start();
+                jdbcUrl = postgres.getJdbcUrl("postgres", "postgres");
+                logger.info("Embedded PostgreSQL started on port {}", postgres.getPort());
+            }
+
+            Workload workload;
+            try (Connection connection = DriverManager.getConnection(
+                    jdbcUrl, settings.username(), settings.password())) {
+                if (settings.generate()) {
+                    DatasetGenerator.generate(connection, settings);
+                }
+                workload = Workload.load(connection);
+            }
+
+            application = new SpringApplicationBuilder(ShopAppApplication.class)
+                    .run(applicationArguments(settings, jdbcUrl));
+            waitForSearchIndex(application.getBean(SearchIndexStatus.class));
+
+            int port = ((WebServerApplicationContext) application).getWebServer().getPort();
+            logger.info("Load test: {} req/s, {} s warmup, {} s measured against port {}",
+                    settings.rate(), settings.warmup().toSeconds(), settings.duration().toSeconds(), port);
+            LoadTestReport report = new LoadGenerator(URI.create("http://localhost:" + port), workload, settings.rate())
+                    .run(settings.warmup(), settings.duration());
+
+            System.out.print(report.format());
+            report.write(settings.result());
+            logger.info("Load test result written to {}", settings.result().toAbsolutePath());
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+            if (postgres != null) {
+                postgres.close();
+            }
+        }
+        System.exit(0);
+    }
+
+    // Même configuration que la production, hors infrastructure : base, index Lucene local, ports libres.
+    // Passées en arguments de ligne de commande pour l'emporter sur application.properties
+    private static String[] applicationArguments(LoadTestSettings settings, String jdbcUrl) throws Exception {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("spring.datasource.url", jdbcUrl);
+        properties.put("spring.datasource.username", settings.username());
+        properties.put("spring.datasource.password", settings.password());
+        properties.put("server.port", 0);
+        properties.put("management.server.port", 0);
+        properties.put("shop.search.backend", "lucene");
+        properties.put("shop.search.lucene.directory", Files.createTempDirectory("shop-loadtest-index").toString());
+        properties.put("elasticsearch.reindex.on.startup", true);
+        return properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+    }
+
+    // Les endpoints de recherche répondent 503 tant que la réindexation de démarrage n'est pas terminée
+    private static void waitForSearchIndex(SearchIndexStatus status) throws InterruptedException {
+        while (!status.isSearchAvailable()) {
+            logger.info("Waiting for search indexing: {}/{}", status.getIndexed(), status.getTotal());
+            Thread.sleep(2000);
+        }
+        if (status.getState() == SearchIndexStatus.State.FAILED) {
+            throw new IllegalStateException("Search indexing failed, see the application logs");
+        }
+    }
+}
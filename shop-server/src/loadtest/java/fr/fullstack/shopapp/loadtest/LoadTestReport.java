@@ -0,0 +1,123 @@
+package fr.fullstack.shopapp.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Débit et latences (p50 / p90 / p99 / p99.9 / max) par endpoint sur la période mesurée.
+ * Affiché sous forme de tableau et écrit en JSON pour comparer les tirs entre eux.
+ */
+final class LoadTestReport {
+
+    // Statut enregistré quand aucune réponse n'a été reçue
+    static final int NO_RESPONSE = 0;
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+    private final double targetRate;
+
+    private final Duration duration;
+
+    LoadTestReport(List<String> endpointNames, double targetRate, Duration duration) {
+        for (String name : endpointNames) {
+            endpoints.put(name, new Endpoint());
+        }
+        this.targetRate = targetRate;
+        this.duration = duration;
+    }
+
+    void record(String endpoint, int status, long latencyNanos) {
+        Endpoint stats = endpoints.get(endpoint);
+        stats.latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), Endpoint.MAX_MICROS));
+        stats.statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+        if (status == NO_RESPONSE || status >= 400) {
+            stats.errors.increment();
+        }
+    }
+
+    String format() {
+        StringBuilder table = new StringBuilder(String.format(Locale.ROOT,
+                "%-46s %8s %7s %8s %8s %8s %8s %8s %8s%n",
+                "endpoint (ms)", "count", "errors", "req/s", "p50", "p90", "p99", "p99.9", "max"));
+        long total = 0;
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            Histogram latencies = entry.getValue().latencies;
+            total += latencies.getTotalCount();
+            table.append(String.format(Locale.ROOT, "%-46s %8d %7d %8.1f", entry.getKey(), latencies.getTotalCount(),
+                    entry.getValue().errors.sum(), throughput(latencies.getTotalCount())));
+            for (double percentile : PERCENTILES) {
+                table.append(String.format(Locale.ROOT, " %8.1f", millis(latencies.getValueAtPercentile(percentile))));
+            }
+            table.append(String.format(Locale.ROOT, " %8.1f%n", millis(latencies.getMaxValue())));
+        }
+        table.append(String.format(Locale.ROOT, "target %.1f req/s, measured %.1f req/s over %d s%n",
+                targetRate, throughput(total), duration.toSeconds()));
+        return table.toString();
+    }
+
+    void write(Path path) throws IOException {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("targetRate", targetRate);
+        result.put("durationSeconds", duration.toSeconds());
+        Map<String, Object> byEndpoint = new LinkedHashMap<>();
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            Histogram latencies = entry.getValue().latencies;
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("count", latencies.getTotalCount());
+            stats.put("errors", entry.getValue().errors.sum());
+            stats.put("throughput", throughput(latencies.getTotalCount()));
+            Map<String, Object> latencyMs = new LinkedHashMap<>();
+            for (double percentile : PERCENTILES) {
+                latencyMs.put("p" + (percentile == Math.rint(percentile) ? String.valueOf((int) percentile)
+                        : String.valueOf(percentile)), millis(latencies.getValueAtPercentile(percentile)));
+            }
+            latencyMs.put("max", millis(latencies.getMaxValue()));
+            stats.put("latencyMs", latencyMs);
+            Map<String, Long> statuses = new TreeMap<>();
+            entry.getValue().statuses.forEach((status, count) -> statuses.put(String.valueOf(status), count.sum()));
+            stats.put("statuses", statuses);
+            byEndpoint.put(entry.getKey(), stats);
+        }
+        result.put("endpoints", byEndpoint);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(path.toFile(), result);
+    }
+
+    private double throughput(long count) {
+        return count / (double) duration.toSeconds();
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static final class Endpoint {
+
+        // Latences en microsecondes, jusqu'à une minute (au-delà, écrêtées)
+        private static final long MAX_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+        private final Histogram latencies = new ConcurrentHistogram(MAX_MICROS, 3);
+
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+        private final LongAdder errors = new LongAdder();
+    }
+}
@@ -0,0 +1,45 @@
+package fr.fullstack.shopapp.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Paramètres du tir de charge, lus dans les propriétés système (-Dloadtest.xxx, transmises par le profil Maven).
+ * Sans loadtest.jdbc-url, un PostgreSQL embarqué est démarré et rempli ; avec une base existante
+ * (copie de production par exemple), ses données sont utilisées telles quelles sauf loadtest.generate=true.
+ */
+record LoadTestSettings(
+        double rate,
+        Duration warmup,
+        Duration duration,
+        int shops,
+        int productsPerShop,
+        int categories,
+        String jdbcUrl,
+        String username,
+        String password,
+        boolean generate,
+        Path result
+) {
+
+    static LoadTestSettings fromSystemProperties() {
+        String jdbcUrl = blankToNull(System.getProperty("loadtest.jdbc-url"));
+        return new LoadTestSettings(
+                Double.parseDouble(System.getProperty("loadtest.rate", "200")),
+                Duration.ofSeconds(Long.getLong("loadtest.warmup-seconds", 15)),
+                Duration.ofSeconds(Long.getLong("loadtest.duration-seconds", 60)),
+                Integer.getInteger("loadtest.shops", 2000),
+                Integer.getInteger("loadtest.products-per-shop", 50),
+                Integer.getInteger("loadtest.categories", 100),
+                jdbcUrl,
+                System.getProperty("loadtest.username", "postgres"),
+                System.getProperty("loadtest.password", ""),
+                jdbcUrl == null || Boolean.parseBoolean(System.getProperty("loadtest.generate", "false")),
+                Path.of(System.getProperty("loadtest.result", "target/loadtest-result.json"))
+        );
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+}
@@ -0,0 +1,137 @@
+package fr.fullstack.shopapp.loadtest;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Mélange de requêtes proche du trafic du client web : surtout des listes paginées et des lectures par id,
+ * un peu de recherche plein texte et quelques modifications de prix (PATCH). Les ids et les mots recherchés
+ * sont tirés des données réellement présentes en base.
+ */
+final class Workload {
+
+    static final String MERGE_PATCH = "application/merge-patch+json";
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    private int totalWeight;
+
+    private Workload(long[] shopIds, long[] productIds, long[] categoryIds,
+                     List<String> shopWords, List<String> productWords) {
+        add("GET /api/v1/shops", 20, r -> get("/api/v1/shops?size=20&page=" + page(r, shopIds.length, 20)
+                + pick(r, List.of("", "&sortBy=name", "&sortBy=createdAt", "&sortBy=nbProducts"))));
+        add("GET /api/v1/shops?view=summary", 10, r -> get("/api/v1/shops?view=summary&size=20&page="
+                + page(r, shopIds.length, 20)));
+        add("GET /api/v1/shops?name", 5, r -> get("/api/v1/shops?size=20&name=" + encode(pick(r, shopWords))));
+        add("GET /api/v1/shops/{id}", 15, r -> get("/api/v1/shops/" + pick(r, shopIds)));
+        add("GET /api/v1/products?shopId", 20, r -> get("/api/v1/products?size=20&page=0&shopId=" + pick(r, shopIds)));
+        add("GET /api/v1/products?categoryId&view=summary", 5, r -> get(
+                "/api/v1/products?view=summary&size=20&categoryId=" + pick(r, categoryIds)));
+        add("GET /api/v1/products/{id}", 10, r -> get("/api/v1/products/" + pick(r, productIds)));
+        add("GET /api/v1/products/search", 5, r -> get("/api/v1/products/search?size=20&q="
+                + encode(pick(r, productWords))));
+        add("GET /api/v1/categories", 8, r -> get("/api/v1/categories?size=50&page=" + page(r, categoryIds.length, 50)));
+        add("PATCH /api/v1/products/{id}", 2, r -> new Request(null, "PATCH",
+                "/api/v1/products/" + pick(r, productIds),
+                String.format(Locale.ROOT, "{\"price\": %.2f}", 1 + r.nextInt(20000) / 100.0)));
+    }
+
+    static Workload load(Connection connection) throws SQLException {
+        long[] shopIds = ids(connection, "SELECT id FROM shops ORDER BY id");
+        long[] productIds = ids(connection, "SELECT id FROM products ORDER BY id");
+        long[] categoryIds = ids(connection, "SELECT id FROM categories ORDER BY id");
+        if (shopIds.length == 0 || productIds.length == 0 || categoryIds.length == 0) {
+            throw new IllegalStateException("The load test database must contain shops, products and categories");
+        }
+        return new Workload(shopIds, productIds, categoryIds,
+                words(connection, "SELECT DISTINCT split_part(name, ' ', 1) FROM shops LIMIT 100"),
+                words(connection, "SELECT DISTINCT split_part(name, ' ', 2) FROM localized_product LIMIT 100"));
+    }
+
+    Request next(Random random) {
+        int draw = random.nextInt(totalWeight);
+        for (Entry entry : entries) {
+            draw -= entry.weight();
+            if (draw < 0) {
+                return entry.request().apply(random);
+            }
+        }
+        throw new IllegalStateException("Empty workload");
+    }
+
+    List<String> endpoints() {
+        return entries.stream().map(Entry::endpoint).toList();
+    }
+
+    private void add(String endpoint, int weight, Function<Random, Request> request) {
+        entries.add(new Entry(endpoint, weight, random -> {
+            Request built = request.apply(random);
+            return built.endpoint() == null ? built.withEndpoint(endpoint) : built;
+        }));
+        totalWeight += weight;
+    }
+
+    // Les premières pages sont beaucoup plus consultées que les suivantes
+    private static int page(Random random, int rows, int size) {
+        int pages = Math.max(1, (rows + size - 1) / size);
+        return random.nextInt(10) < 8 ? random.nextInt(Math.min(pages, 3)) : random.nextInt(Math.min(pages, 100));
+    }
+
+    private static long pick(Random random, long[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String pick(Random random, List<String> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static Request get(String path) {
+        return new Request(null, "GET", path, null);
+    }
+
+    private static long[] ids(Connection connection, String sql) throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet rows = statement.executeQuery(sql)) {
+            while (rows.next()) {
+                ids.add(rows.getLong(1));
+            }
+        }
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static List<String> words(Connection connection, String sql) throws SQLException {
+        List<String> words = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet rows = statement.executeQuery(sql)) {
+            while (rows.next()) {
+                if (rows.getString(1) != null && !rows.getString(1).isBlank()) {
+                    words.add(rows.getString(1));
+                }
+            }
+        }
+        return words.isEmpty() ? List.of("a") : words;
+    }
+
+    // endpoint : libellé du rapport (chemin sans les valeurs tirées au sort)
+    record Request(String endpoint, String method, String path, String body) {
+
+        Request withEndpoint(String endpoint) {
+            return new Request(endpoint, method, path, body);
+        }
+    }
+
+    private record Entry(String endpoint, int weight, Function<Random, Request> request) {
+    }
+}
@@ -4,9 +4,11 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.validation.Errors;
 
 @SpringBootApplication
+@EnableScheduling
 public class ShopAppApplication {
 
     public static void main(String[] args) {
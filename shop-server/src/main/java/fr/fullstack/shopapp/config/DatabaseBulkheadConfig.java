@@ -0,0 +1,31 @@
+package fr.fullstack.shopapp.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class DatabaseBulkheadConfig {
+
+    // Enveloppe le DataSource (Hikari) ; par défaut, autant de permis que de connexions dans le pool
+    @Bean
+    public static BeanPostProcessor databaseBulkheadPostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof BulkheadDataSource
+                        || !environment.getProperty("shop.db.bulkhead.enabled", Boolean.class, true)) {
+                    return bean;
+                }
+                int poolSize = environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+                return new BulkheadDataSource(
+                        dataSource,
+                        environment.getProperty("shop.db.bulkhead.max-concurrent", Integer.class, poolSize),
+                        environment.getProperty("shop.db.bulkhead.acquire-timeout-ms", Long.class, 2000L));
+            }
+        };
+    }
+}
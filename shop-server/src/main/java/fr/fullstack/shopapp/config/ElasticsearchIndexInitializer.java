@@ -1,154 +1,232 @@
 package fr.fullstack.shopapp.config;
 
+import fr.fullstack.shopapp.model.Product;
+import fr.fullstack.shopapp.model.SearchIndexCheckpoint;
 import fr.fullstack.shopapp.model.Shop;
-
+import fr.fullstack.shopapp.repository.ProductRepository;
+import fr.fullstack.shopapp.repository.SearchIndexCheckpointRepository;
+import fr.fullstack.shopapp.repository.ShopRepository;
+import fr.fullstack.shopapp.service.SearchIndexStatus;
+import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityManager;
-
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.PersistenceContext;
-
 import org.hibernate.search.mapper.orm.Search;
-
 import org.hibernate.search.mapper.orm.massindexing.MassIndexer;
-
-import org.hibernate.search.mapper.orm.session.SearchSession;
-
+import org.hibernate.search.mapper.pojo.massindexing.MassIndexingMonitor;
 import org.slf4j.Logger;
-
 import org.slf4j.LoggerFactory;
-
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.ApplicationListener;
-
-import org.springframework.context.event.ContextRefreshedEvent;
-
 import org.springframework.stereotype.Component;
-
-import org.springframework.transaction.annotation.Transactional;
-
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Réindexation de masse des index idx_shops et idx_products au démarrage, en arrière-plan.
+ * Chaque index est reconstruit par tranches d'ids ; après chaque tranche le dernier id est enregistré
+ * dans search_index_checkpoint, ce qui permet de reprendre après un arrêt brutal.
+ * Un index construit avec une autre version du mapping (MAPPING_VERSION) est supprimé, recréé puis reconstruit :
+ * Hibernate Search ne crée que les index manquants (schema_management.strategy=create) et ne migre pas les autres.
+ */
 @Component
-
 @ConditionalOnProperty(name = "elasticsearch.reindex.on.startup", havingValue = "true", matchIfMissing = true)
-
-public class ElasticsearchIndexInitializer implements ApplicationListener<ContextRefreshedEvent> {
+public class ElasticsearchIndexInitializer implements ApplicationListener<ApplicationReadyEvent> {
 
     private static final Logger logger = LoggerFactory.getLogger(ElasticsearchIndexInitializer.class);
 
-    private static boolean alreadyChecked = false;
+    // À incrémenter à chaque changement de mapping (champ ajouté, analyseur, type...) :
+    // 2 = name_autocomplete, 3 = createdAtMonth / createdAtYear, 4 = horaires d'ouverture imbriqués (schedule)
+    public static final int MAPPING_VERSION = 4;
 
     @PersistenceContext
-
     private EntityManager entityManager;
 
-    @Value("${elasticsearch.reindex.on.startup:true}")
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
 
-    private String reindexProperty;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
 
-    @Override
+    @Autowired
+    private SearchIndexCheckpointRepository checkpointRepository;
 
-    @Transactional
+    @Autowired
+    private ShopRepository shopRepository;
 
-    public void onApplicationEvent(ContextRefreshedEvent event) {
+    @Autowired
+    private ProductRepository productRepository;
 
-        // Prevent multiple executions in case of context refresh
-        System.out.println("BEGIN INDEXING CALLBACK");
+    @Autowired
+    private SearchIndexStatus status;
 
-        if (alreadyChecked) {
+    @Value("${elasticsearch.reindex.threads:4}")
+    private int threads;
 
-            return;
+    @Value("${elasticsearch.reindex.batch-size:100}")
+    private int batchSize;
 
-        }
-
-        alreadyChecked = true;
-
-        try {
-
-            SearchSession searchSession = Search.session(entityManager);
-
-            
-
-            // Check if index is empty or doesn't exist
-
-            long documentCount = searchSession.search(Shop.class)
-
-                    .where(f -> f.matchAll())
-
-                    .fetchTotalHitCount();
+    @Value("${elasticsearch.reindex.fetch-size:1000}")
+    private int fetchSize;
 
-            
+    @Value("${elasticsearch.reindex.chunk-size:10000}")
+    private int chunkSize;
 
-            if (documentCount == 0) {
-                System.out.println("DOCUMENT_COUNT=0");
+    @Value("${elasticsearch.reindex.check-retries:5}")
+    private int checkRetries;
 
-                logger.info("Elasticsearch index for Shop entities is empty. Starting reindexing...");
+    private volatile boolean started = false;
 
-                
-
-                MassIndexer indexer = searchSession.massIndexer(Shop.class)
-
-                        .threadsToLoadObjects(2)
-
-                        .batchSizeToLoadObjects(25);
-
-                
-
-                indexer.startAndWait();
-
-                
-
-                logger.info("Successfully completed Elasticsearch reindexing for Shop entities.");
-
-            } else {
+    @PostConstruct
+    public void init() {
+        // La recherche reste fermée jusqu'à la vérification de l'index
+        status.pending();
+    }
 
-                logger.info("Elasticsearch index for Shop entities already contains {} documents. Skipping reindexing.", documentCount);
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        // Prevent multiple executions in case of context refresh
+        if (started) {
+            return;
+        }
+        started = true;
 
-            }
+        Thread thread = new Thread(this::reindexIfNeeded, "es-mass-indexer");
+        thread.setDaemon(true);
+        thread.start();
+    }
 
+    private void reindexIfNeeded() {
+        try {
+            reindexIfNeeded("idx_shops", Shop.class,
+                    shopRepository::countByIdGreaterThan, shopRepository::findChunkUpperBound);
+            reindexIfNeeded("idx_products", Product.class,
+                    productRepository::countByIdGreaterThan, productRepository::findChunkUpperBound);
+            status.ready();
         } catch (InterruptedException e) {
-
             Thread.currentThread().interrupt();
-
+            status.failed("interrupted");
             logger.error("Elasticsearch reindexing was interrupted", e);
-
         } catch (Exception e) {
+            status.failed(e.getMessage());
+            logger.error("Error during Elasticsearch reindexing", e);
+        }
+    }
 
-            logger.warn("Could not check Elasticsearch index. Attempting to reindex...", e);
-
-            try {
-
-                SearchSession searchSession = Search.session(entityManager);
-
-                MassIndexer indexer = searchSession.massIndexer(Shop.class)
-
-                        .threadsToLoadObjects(2)
-
-                        .batchSizeToLoadObjects(25);
-
-                
+    private void reindexIfNeeded(
+            String indexName,
+            Class<?> type,
+            LongUnaryOperator countAfter,
+            ChunkBound chunkBound
+    ) throws InterruptedException {
+        String entityName = type.getSimpleName();
+        SearchIndexCheckpoint checkpoint = checkpointRepository.findById(indexName).orElse(null);
+        boolean sameMapping = checkpoint != null && checkpoint.getMappingVersion() == MAPPING_VERSION;
+        // Vérifie aussi que le backend de recherche est joignable
+        long documentCount = countDocuments(type);
+        long lastId = 0;
+
+        if (sameMapping && !checkpoint.isCompleted()) {
+            lastId = checkpoint.getLastId();
+            logger.info("Resuming reindexing of {} entities after id {}", entityName, lastId);
+        } else if (sameMapping && documentCount > 0) {
+            logger.info("Elasticsearch index for {} entities already contains {} documents. Skipping reindexing.",
+                    entityName, documentCount);
+            return;
+        } else {
+            if (documentCount > 0) {
+                logger.info("Elasticsearch index for {} entities was built with mapping version {} (current {}). "
+                                + "Recreating and reindexing...", entityName,
+                        checkpoint == null ? "unknown" : checkpoint.getMappingVersion(), MAPPING_VERSION);
+            } else {
+                logger.info("Elasticsearch index for {} entities is empty. Starting reindexing...", entityName);
+            }
+            Search.mapping(entityManagerFactory).scope(type).schemaManager().dropAndCreate();
+            checkpoint = new SearchIndexCheckpoint(indexName, MAPPING_VERSION);
+            checkpointRepository.save(checkpoint);
+        }
 
-                indexer.startAndWait();
+        status.indexing(countAfter.applyAsLong(lastId));
+        Long upperId;
+        while ((upperId = chunkBound.upperBound(lastId, chunkSize)) != null) {
+            reindexChunk(type, lastId, upperId);
+            lastId = upperId;
+            checkpoint.setLastId(lastId);
+            checkpointRepository.save(checkpoint);
+        }
+        checkpoint.setCompleted(true);
+        checkpointRepository.save(checkpoint);
 
-                
+        logger.info("Successfully completed Elasticsearch reindexing for {} entities ({} entities/s).",
+                entityName, Math.round(status.getEntitiesPerSecond()));
+    }
 
-                logger.info("Successfully completed Elasticsearch reindexing for Shop entities.");
+    private void reindexChunk(Class<?> type, long fromId, long toId) throws InterruptedException {
+        MassIndexer indexer = Search.mapping(entityManagerFactory).scope(type).massIndexer()
+                .threadsToLoadObjects(threads)
+                .batchSizeToLoadObjects(batchSize)
+                .idFetchSize(fetchSize)
+                .purgeAllOnStart(false)
+                .mergeSegmentsOnFinish(false)
+                .monitor(new ProgressMonitor());
+        indexer.type(type)
+                .reindexOnly("e.id > :fromId and e.id <= :toId")
+                .param("fromId", fromId)
+                .param("toId", toId);
+        indexer.startAndWait();
+    }
 
-            } catch (InterruptedException ie) {
+    // Elasticsearch peut démarrer après l'application : on réessaie avant d'abandonner
+    private long countDocuments(Class<?> type) throws InterruptedException {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        RuntimeException lastError = null;
 
-                Thread.currentThread().interrupt();
+        for (int attempt = 0; attempt <= checkRetries; attempt++) {
+            try {
+                Long count = transaction.execute(s -> Search.session(entityManager).search(type)
+                        .where(f -> f.matchAll())
+                        .fetchTotalHitCount());
+                return count == null ? 0 : count;
+            } catch (RuntimeException e) {
+                lastError = e;
+                logger.warn("Could not check Elasticsearch index (attempt {}/{})", attempt + 1, checkRetries + 1);
+                Thread.sleep(Math.min(1000L << attempt, 30000L));
+            }
+        }
+        throw lastError;
+    }
 
-                logger.error("Elasticsearch reindexing was interrupted", ie);
+    private interface ChunkBound {
+        Long upperBound(long afterId, int chunkSize);
+    }
 
-            } catch (Exception reindexException) {
+    private class ProgressMonitor implements MassIndexingMonitor {
+        @Override
+        public void documentsAdded(long increment) {
+            status.addIndexed(increment);
+        }
 
-                logger.error("Error during Elasticsearch reindexing", reindexException);
+        @Override
+        public void documentsBuilt(long increment) {
+        }
 
-            }
+        @Override
+        public void entitiesLoaded(long increment) {
+        }
 
+        @Override
+        public void addToTotalCount(long count) {
         }
 
+        @Override
+        public void indexingCompleted() {
+            logger.info("Reindexing progress: {}", status.getInfo());
+        }
     }
-
 }
-
@@ -0,0 +1,210 @@
+package fr.fullstack.shopapp.config;
+
+import fr.fullstack.shopapp.exception.SqlQueryBudgetExceededException;
+import org.hibernate.SessionEventListener;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compteurs Hibernate de la requête HTTP en cours (requêtes SQL, entités chargées, collections initialisées,
+ * accès au cache de second niveau). Les statistiques Hibernate globales ne permettent pas d'attribuer
+ * le coût à un endpoint : les compteurs sont portés par le thread de la requête, entre start() et stop().
+ * Hors requête HTTP (workers, tâches planifiées), rien n'est compté.
+ * Chaque texte SQL exécuté est aussi compté pour repérer les N+1 (même instruction répétée), et un budget
+ * d'instructions peut être imposé : au-delà, l'instruction suivante échoue avant d'être envoyée.
+ */
+public final class HibernateRequestStatistics {
+
+    // Attribut de la requête HTTP portant ses compteurs (lisible après coup, par exemple via MockMvc)
+    public static final String REQUEST_ATTRIBUTE = HibernateRequestStatistics.class.getName();
+
+    private static final ThreadLocal<HibernateRequestStatistics> CURRENT = new ThreadLocal<>();
+
+    private long queries;
+
+    private long entityLoads;
+
+    private long collectionFetches;
+
+    private long secondLevelCacheHits;
+
+    private long secondLevelCacheMisses;
+
+    // Nombre d'exécutions par texte SQL (paramètres en ?)
+    private final Map<String, Integer> statements = new HashMap<>();
+
+    // 0 : pas de budget
+    private int budget;
+
+    private boolean rejectOverBudget;
+
+    // Une instruction a été refusée (mode reject)
+    private boolean rejected;
+
+    public static HibernateRequestStatistics start() {
+        HibernateRequestStatistics statistics = new HibernateRequestStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    public static HibernateRequestStatistics current() {
+        return CURRENT.get();
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    public long getQueries() {
+        return queries;
+    }
+
+    public long getEntityLoads() {
+        return entityLoads;
+    }
+
+    public long getCollectionFetches() {
+        return collectionFetches;
+    }
+
+    public long getSecondLevelCacheHits() {
+        return secondLevelCacheHits;
+    }
+
+    public long getSecondLevelCacheMisses() {
+        return secondLevelCacheMisses;
+    }
+
+    public Map<String, Integer> getStatements() {
+        return Collections.unmodifiableMap(statements);
+    }
+
+    public int getBudget() {
+        return budget;
+    }
+
+    public boolean isOverBudget() {
+        return rejected || (budget > 0 && queries > budget);
+    }
+
+    public void setBudget(int budget, boolean reject) {
+        this.budget = budget;
+        this.rejectOverBudget = reject;
+    }
+
+    private void checkBudget() {
+        if (rejectOverBudget && budget > 0 && queries >= budget) {
+            rejected = true;
+            throw new SqlQueryBudgetExceededException(
+                    "SQL statement budget exceeded: " + budget + " statements already executed by this request");
+        }
+    }
+
+    // Instancié par Hibernate pour chaque session (hibernate.session.events.auto)
+    public static class SessionListener implements SessionEventListener {
+
+        @Override
+        public void jdbcExecuteStatementStart() {
+            HibernateRequestStatistics statistics = current();
+            if (statistics != null) {
+                statistics.checkBudget();
+            }
+        }
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            HibernateRequestStatistics statistics = current();
+            if (statistics != null) {
+                statistics.checkBudget();
+            }
+        }
+
+        @Override
+        public void jdbcExecuteStatementEnd() {
+            HibernateRequestStatistics statistics = current();
+            if (statistics != null) {
+                statistics.queries++;
+            }
+        }
+
+        @Override
+        public void jdbcExecuteBatchEnd() {
+            HibernateRequestStatistics statistics = current();
+            if (statistics != null) {
+                statistics.queries++;
+            }
+        }
+
+        @Override
+        public void cacheGetEnd(boolean hit) {
+            HibernateRequestStatistics statistics = current();
+            if (statistics != null) {
+                if (hit) {
+                    statistics.secondLevelCacheHits++;
+                } else {
+                    statistics.secondLevelCacheMisses++;
+                }
+            }
+        }
+    }
+
+    // Vu par Hibernate avant la préparation de chaque instruction (hibernate.session_factory.statement_inspector)
+    public static class StatementRecorder implements StatementInspector {
+
+        @Override
+        public String inspect(String sql) {
+            HibernateRequestStatistics statistics = current();
+            if (statistics != null) {
+                statistics.statements.merge(sql, 1, Integer::sum);
+            }
+            return sql;
+        }
+    }
+
+    // Écouteurs d'événements ajoutés à la SessionFactory (hibernate.integrator_provider)
+    public static class EventIntegrator
+            implements Integrator, PostLoadEventListener, InitializeCollectionEventListener {
+
+        @Override
+        public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+                              SessionFactoryImplementor sessionFactory) {
+            EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+            registry.appendListeners(EventType.POST_LOAD, this);
+            registry.appendListeners(EventType.INIT_COLLECTION, this);
+        }
+
+        @Override
+        public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        }
+
+        @Override
+        public void onPostLoad(PostLoadEvent event) {
+            HibernateRequestStatistics statistics = current();
+            if (statistics != null) {
+                statistics.entityLoads++;
+            }
+        }
+
+        @Override
+        public void onInitializeCollection(InitializeCollectionEvent event) {
+            HibernateRequestStatistics statistics = current();
+            if (statistics != null) {
+                statistics.collectionFetches++;
+            }
+        }
+    }
+}
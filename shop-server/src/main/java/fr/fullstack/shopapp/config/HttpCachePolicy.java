@@ -0,0 +1,58 @@
+package fr.fullstack.shopapp.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * GET conditionnels : l'ETag est calculé par une requête légère (version, compteurs) avant tout chargement.
+ * Si le client possède déjà cette version (If-None-Match), la réponse 304 part sans charger ni sérialiser l'entité.
+ * Cache-Control se règle par ressource : shop.http.cache.<ressource>.max-age-seconds (défaut shop.http.cache.max-age-seconds).
+ */
+@Component
+public class HttpCachePolicy {
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${shop.http.cache.max-age-seconds:0}")
+    private long defaultMaxAge;
+
+    // public : cache partagé (CDN) autorisé ; private : navigateur uniquement
+    @Value("${shop.http.cache.public:false}")
+    private boolean shared;
+
+    public <T> ResponseEntity<T> conditionalGet(
+            WebRequest request, String resource, Optional<String> etag, Loader<T> loader) throws Exception {
+        CacheControl cacheControl = cacheControl(resource);
+        // Entité absente : le chargement renvoie l'erreur habituelle
+        if (etag.isEmpty()) {
+            return ResponseEntity.ok().cacheControl(cacheControl).body(loader.load());
+        }
+        if (request.checkNotModified(etag.get())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).eTag(etag.get()).build();
+        }
+        return ResponseEntity.ok().cacheControl(cacheControl).eTag(etag.get()).body(loader.load());
+    }
+
+    public CacheControl cacheControl(String resource) {
+        long maxAge = environment.getProperty(
+                "shop.http.cache." + resource + ".max-age-seconds", Long.class, defaultMaxAge);
+        // max-age=0 : le client garde la réponse mais la revalide à chaque lecture (304 si inchangée)
+        CacheControl cacheControl = maxAge > 0 ? CacheControl.maxAge(Duration.ofSeconds(maxAge)) : CacheControl.noCache();
+        return shared ? cacheControl.cachePublic() : cacheControl.cachePrivate();
+    }
+
+    @FunctionalInterface
+    public interface Loader<T> {
+        T load() throws Exception;
+    }
+}
@@ -0,0 +1,107 @@
+package fr.fullstack.shopapp.config;
+
+import fr.fullstack.shopapp.service.SearchIndexStatus;
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Métriques exposées par l'actuator (/actuator/prometheus sur le port d'administration) :
+ * latences HTTP par méthode de contrôleur, cloison JDBC, compteurs Hibernate par requête,
+ * progression de la réindexation de masse. Le pool Hikari, les statistiques Hibernate globales
+ * et le cache de second niveau sont instrumentés par Spring Boot.
+ */
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private RequestMetricsInterceptor requestMetricsInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(requestMetricsInterceptor);
+    }
+
+    // http.server.requests : tag "handler" (Contrôleur#méthode) en plus de l'uri
+    @Bean
+    public DefaultServerRequestObservationConvention handlerServerRequestObservationConvention() {
+        return new DefaultServerRequestObservationConvention() {
+            @Override
+            public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+                Object handler = context.getCarrier().getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+                return super.getLowCardinalityKeyValues(context)
+                        .and("handler", RequestMetricsInterceptor.handlerName(handler));
+            }
+        };
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateRequestStatisticsCustomizer() {
+        return properties -> {
+            properties.put("hibernate.session.events.auto", HibernateRequestStatistics.SessionListener.class.getName());
+            properties.put("hibernate.session_factory.statement_inspector",
+                    new HibernateRequestStatistics.StatementRecorder());
+            properties.put("hibernate.integrator_provider",
+                    (IntegratorProvider) () -> List.of(new HibernateRequestStatistics.EventIntegrator()));
+        };
+    }
+
+    @Bean
+    public MeterBinder databaseBulkheadMetrics(DataSource dataSource) {
+        return registry -> {
+            if (!(dataSource instanceof BulkheadDataSource bulkhead)) {
+                return;
+            }
+            Gauge.builder("shop.db.bulkhead.active", bulkhead, BulkheadDataSource::getActive)
+                    .description("Connexions empruntées au travers de la cloison")
+                    .register(registry);
+            Gauge.builder("shop.db.bulkhead.waiting", bulkhead, BulkheadDataSource::getWaiting)
+                    .description("Threads en attente d'un permis")
+                    .register(registry);
+            Gauge.builder("shop.db.bulkhead.max", bulkhead, BulkheadDataSource::getMaxConcurrent)
+                    .register(registry);
+            FunctionCounter.builder("shop.db.bulkhead.rejected", bulkhead, BulkheadDataSource::getRejected)
+                    .description("Requêtes rejetées faute de permis dans le délai")
+                    .register(registry);
+            FunctionTimer.builder("shop.db.bulkhead.wait", bulkhead,
+                            BulkheadDataSource::getAcquired, BulkheadDataSource::getAcquireWaitNanos, TimeUnit.NANOSECONDS)
+                    .description("Attente d'un permis avant l'emprunt d'une connexion")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder massIndexingMetrics(SearchIndexStatus status) {
+        return registry -> {
+            Gauge.builder("shop.search.mass-indexing.indexed", status, SearchIndexStatus::getIndexed)
+                    .register(registry);
+            Gauge.builder("shop.search.mass-indexing.total", status, SearchIndexStatus::getTotal)
+                    .register(registry);
+            Gauge.builder("shop.search.mass-indexing.rate", status, SearchIndexStatus::getEntitiesPerSecond)
+                    .baseUnit("entities/s")
+                    .register(registry);
+            // 1 pour l'état courant, 0 pour les autres
+            for (SearchIndexStatus.State state : SearchIndexStatus.State.values()) {
+                Gauge.builder("shop.search.mass-indexing.state", status, s -> s.getState() == state ? 1 : 0)
+                        .tag("state", state.name())
+                        .register(registry);
+            }
+        };
+    }
+}
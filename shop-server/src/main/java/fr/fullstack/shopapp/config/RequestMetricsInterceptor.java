@@ -0,0 +1,121 @@
+package fr.fullstack.shopapp.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.Map;
+
+/**
+ * Enregistre, par méthode de contrôleur, les compteurs Hibernate de chaque requête
+ * (métriques shop.hibernate.request.*, tag handler = Contrôleur#méthode).
+ * Applique aussi le budget d'instructions SQL (@SqlQueryBudget, sinon shop.sql.budget.default-max)
+ * et signale les instructions répétées au moins shop.sql.n-plus-one.threshold fois (N+1 probable).
+ */
+@Component
+public class RequestMetricsInterceptor implements AsyncHandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestMetricsInterceptor.class);
+
+    // Longueur du SQL cité dans les journaux
+    private static final int MAX_LOGGED_SQL = 300;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${shop.sql.budget.default-max:0}")
+    private int defaultBudget;
+
+    // off : ni contrôle ni journal ; log : avertissement après coup ; reject : l'instruction en trop échoue
+    @Value("${shop.sql.budget.mode:log}")
+    private String budgetMode;
+
+    // 0 : détection N+1 désactivée
+    @Value("${shop.sql.n-plus-one.threshold:0}")
+    private int nPlusOneThreshold;
+
+    public static String handlerName(Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod) {
+            return handlerMethod.getBeanType().getSimpleName() + "#" + handlerMethod.getMethod().getName();
+        }
+        return "none";
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod) {
+            HibernateRequestStatistics statistics = HibernateRequestStatistics.start();
+            if (!"off".equals(budgetMode)) {
+                SqlQueryBudget budget = handlerMethod.getMethodAnnotation(SqlQueryBudget.class);
+                statistics.setBudget(budget != null ? budget.value() : defaultBudget, "reject".equals(budgetMode));
+            }
+            request.setAttribute(HibernateRequestStatistics.REQUEST_ATTRIBUTE, statistics);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(
+            HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        HibernateRequestStatistics statistics = HibernateRequestStatistics.current();
+        HibernateRequestStatistics.stop();
+        if (statistics == null) {
+            return;
+        }
+        String name = handlerName(handler);
+        record("shop.hibernate.request.queries", name, statistics.getQueries());
+        record("shop.hibernate.request.entity.loads", name, statistics.getEntityLoads());
+        record("shop.hibernate.request.collection.fetches", name, statistics.getCollectionFetches());
+        record("shop.hibernate.request.cache.hits", name, statistics.getSecondLevelCacheHits());
+        record("shop.hibernate.request.cache.misses", name, statistics.getSecondLevelCacheMisses());
+
+        // En mode reject, l'instruction en trop a échoué : le nombre journalisé est celui du budget
+        if (statistics.isOverBudget()) {
+            count("shop.sql.budget.exceeded", name);
+            logger.warn("{} {} ({}) executed {} SQL statements, budget is {}", request.getMethod(),
+                    request.getRequestURI(), name, statistics.getQueries(), statistics.getBudget());
+        }
+        if (nPlusOneThreshold > 0) {
+            for (Map.Entry<String, Integer> statement : statistics.getStatements().entrySet()) {
+                if (statement.getValue() >= nPlusOneThreshold) {
+                    count("shop.sql.n-plus-one", name);
+                    logger.warn("Possible N+1 in {} {} ({}): statement executed {} times: {}", request.getMethod(),
+                            request.getRequestURI(), name, statement.getValue(), abbreviate(statement.getKey()));
+                }
+            }
+        }
+    }
+
+    // Réponse asynchrone (export en flux) : afterCompletion sera appelé sur un autre thread, rien n'y est compté
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        HibernateRequestStatistics.stop();
+    }
+
+    private void record(String metric, String handler, long value) {
+        DistributionSummary.builder(metric)
+                .tag("handler", handler)
+                .register(meterRegistry)
+                .record(value);
+    }
+
+    private void count(String metric, String handler) {
+        Counter.builder(metric)
+                .tag("handler", handler)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static String abbreviate(String sql) {
+        return sql.length() <= MAX_LOGGED_SQL ? sql : sql.substring(0, MAX_LOGGED_SQL) + "...";
+    }
+}
@@ -0,0 +1,44 @@
+package fr.fullstack.shopapp.config;
+
+import fr.fullstack.shopapp.search.ElasticsearchAnalysisConfig;
+import fr.fullstack.shopapp.search.LuceneAnalysisConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SearchIndexingConfig {
+
+    public static final String MODE_OUTBOX = "outbox";
+
+    public static final String BACKEND_LUCENE = "lucene";
+
+    // En mode outbox, l'indexation automatique au commit est coupée : les services alimentent la table outbox
+    @Bean
+    public HibernatePropertiesCustomizer searchIndexingModeCustomizer(
+            @Value("${shop.search.indexing-mode:sync}") String indexingMode) {
+        return properties -> properties.put(
+                "hibernate.search.indexing.listeners.enabled",
+                String.valueOf(!MODE_OUTBOX.equals(indexingMode)));
+    }
+
+    // Backend "elasticsearch" (cluster distant) ou "lucene" (index embarqué sur disque local, une seule instance)
+    @Bean
+    public HibernatePropertiesCustomizer searchBackendCustomizer(
+            @Value("${shop.search.backend:elasticsearch}") String backend,
+            @Value("${shop.search.lucene.directory:./search-index}") String luceneDirectory) {
+        return properties -> {
+            if (BACKEND_LUCENE.equals(backend)) {
+                properties.put("hibernate.search.backend.type", "lucene");
+                properties.put("hibernate.search.backend.directory.root", luceneDirectory);
+                properties.put("hibernate.search.backend.analysis.configurer",
+                        "class:" + LuceneAnalysisConfig.class.getName());
+            } else {
+                properties.put("hibernate.search.backend.type", "elasticsearch");
+                properties.put("hibernate.search.backend.analysis.configurer",
+                        "class:" + ElasticsearchAnalysisConfig.class.getName());
+            }
+        };
+    }
+}
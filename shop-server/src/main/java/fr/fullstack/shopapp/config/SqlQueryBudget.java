@@ -0,0 +1,19 @@
+package fr.fullstack.shopapp.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Nombre maximal d'instructions SQL qu'une requête HTTP traitée par cette méthode de contrôleur peut exécuter.
+ * Sans annotation, le budget est shop.sql.budget.default-max. Le dépassement est journalisé
+ * ou rejeté selon shop.sql.budget.mode (voir RequestMetricsInterceptor). 0 : pas de limite (imports en masse).
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SqlQueryBudget {
+    int value();
+}
@@ -0,0 +1,79 @@
+package fr.fullstack.shopapp.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Détection des threads virtuels épinglés sur leur thread porteur (bloc synchronized ou appel natif
+ * pendant une attente) via l'événement JFR jdk.VirtualThreadPinned, écouté en continu dans le processus.
+ * Chaque épinglage au-delà du seuil est journalisé avec le premier cadre de pile appartenant
+ * aux paquets surveillés (Hibernate, pilote PostgreSQL, Hikari, application).
+ */
+@Component
+@ConditionalOnProperty(name = "shop.threads.pinning-monitor.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    @Value("${shop.threads.pinning-monitor.threshold-ms:20}")
+    private long thresholdMs;
+
+    @Value("${shop.threads.pinning-monitor.packages:org.hibernate,org.postgresql,com.zaxxer.hikari,fr.fullstack}")
+    private List<String> packages;
+
+    private final AtomicLong pinnedEvents = new AtomicLong();
+
+    private RecordingStream stream;
+
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(thresholdMs)).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        logger.info("Virtual thread pinning monitor started (threshold {} ms, packages {})", thresholdMs, packages);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    public long getPinnedEvents() {
+        return pinnedEvents.get();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return;
+        }
+        for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (packages.stream().anyMatch(type::startsWith)) {
+                pinnedEvents.incrementAndGet();
+                logger.warn("Virtual thread pinned for {} ms in {}.{}:{}", event.getDuration().toMillis(),
+                        type, frame.getMethod().getName(), frame.getLineNumber());
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Pinned virtual thread stack: {}", event.getStackTrace());
+                }
+                return;
+            }
+        }
+    }
+}
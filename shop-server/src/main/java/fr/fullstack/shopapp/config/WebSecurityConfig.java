@@ -13,7 +13,9 @@ public class WebSecurityConfig implements WebMvcConfigurer {
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
-                .allowedMethods("POST", "GET", "PUT", "DELETE");
+                .allowedMethods("POST", "GET", "PUT", "PATCH", "DELETE")
+                // ETag lisible par le client pour le renvoyer dans If-Match
+                .exposedHeaders("ETag");
     }
 
     @Bean
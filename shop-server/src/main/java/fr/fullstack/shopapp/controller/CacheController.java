@@ -0,0 +1,23 @@
+package fr.fullstack.shopapp.controller;
+
+import fr.fullstack.shopapp.service.CacheStatisticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/cache")
+public class CacheController {
+
+    @Autowired
+    private CacheStatisticsService service;
+
+    @GetMapping("/statistics")
+    public ResponseEntity<Map<String, Object>> getCacheStatistics() throws Exception {
+        return ResponseEntity.ok(service.getStatistics());
+    }
+}
@@ -1,12 +1,18 @@
 package fr.fullstack.shopapp.controller;
 
+import fr.fullstack.shopapp.config.HttpCachePolicy;
+import fr.fullstack.shopapp.config.SqlQueryBudget;
 import fr.fullstack.shopapp.model.Category;
 import fr.fullstack.shopapp.service.CategoryService;
+import fr.fullstack.shopapp.util.BulkDeleteReport;
+import fr.fullstack.shopapp.util.FieldSelection;
 import fr.fullstack.shopapp.util.ErrorValidation;
+import fr.fullstack.shopapp.util.TotalMode;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.Errors;
@@ -17,10 +23,16 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/v1/categories")
@@ -29,12 +41,23 @@ public class CategoryController {
     @Autowired
     private CategoryService service;
 
+    @Autowired
+    private HttpCachePolicy httpCachePolicy;
+
     @PostMapping
     public ResponseEntity<Category> createCategory(@Valid @RequestBody Category category, Errors errors) throws Exception {
         return ResponseEntity.ok(service.createCategory(category));
     }
 
 
+    // Suppression en masse : DELETE /api/v1/categories?ids=1,2,3
+    @DeleteMapping
+    public ResponseEntity<BulkDeleteReport> deleteCategories(
+            @RequestParam @NotEmpty @Size(max = BulkDeleteReport.MAX_IDS) List<Long> ids
+    ) {
+        return ResponseEntity.ok(service.deleteCategories(ids));
+    }
+
     @DeleteMapping("/{id}")
     public HttpStatus deleteCategory(@PathVariable long id) throws Exception{
         service.deleteCategoryById(id);
@@ -42,17 +65,29 @@ public class CategoryController {
     }
 
 
+    // GET conditionnel : l'ETag résume toute la table (nombre, id max, somme des versions)
     @GetMapping
-
-    public ResponseEntity<Page<Category>> getAllCategories(Pageable pageable)  {
-        return ResponseEntity.ok(service.getCategoryList(pageable));
+    @SqlQueryBudget(3)
+    public ResponseEntity<Slice<?>> getAllCategories(
+            Pageable pageable,
+            @RequestParam(required = false) String total,
+            @RequestParam(required = false) Optional<String> view,
+            @RequestParam(required = false) Optional<String> fields,
+            WebRequest request
+    ) throws Exception {
+        FieldSelection selection = service.parseFieldSelection(view, fields);
+        return httpCachePolicy.conditionalGet(request, "categories", Optional.of(service.getCategoryListEtag()),
+                () -> selection.isFull()
+                        ? service.getCategoryList(pageable, TotalMode.from(total))
+                        : service.getCategoryProjection(selection, pageable, TotalMode.from(total)));
     }
 
 
     @GetMapping("/{id}")
-    public ResponseEntity<Category> getCategoryById(@PathVariable long id) throws Exception {
-        Category category = service.getCategoryById(id);
-        return ResponseEntity.ok().body(category);
+    @SqlQueryBudget(2)
+    public ResponseEntity<Category> getCategoryById(@PathVariable long id, WebRequest request) throws Exception {
+        return httpCachePolicy.conditionalGet(request, "categories", service.getCategoryEtag(id),
+                () -> service.getCategoryById(id));
     }
 
 
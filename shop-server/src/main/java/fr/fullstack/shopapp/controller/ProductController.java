@@ -1,26 +1,46 @@
 package fr.fullstack.shopapp.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import fr.fullstack.shopapp.config.HttpCachePolicy;
+import fr.fullstack.shopapp.config.SqlQueryBudget;
 import fr.fullstack.shopapp.model.Product;
+import fr.fullstack.shopapp.service.ExportService;
+import fr.fullstack.shopapp.service.ImportService;
 import fr.fullstack.shopapp.service.ProductService;
+import fr.fullstack.shopapp.util.BulkDeleteReport;
+import fr.fullstack.shopapp.util.FieldSelection;
+import fr.fullstack.shopapp.util.ImportReport;
+import fr.fullstack.shopapp.util.MergePatch;
 import fr.fullstack.shopapp.util.ErrorValidation;
+import fr.fullstack.shopapp.util.TotalMode;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.Errors;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.io.InputStream;
+import java.util.List;
 import java.util.Optional;
 
 @RestController
@@ -30,6 +50,15 @@ public class ProductController {
     @Autowired
     private ProductService service;
 
+    @Autowired
+    private ImportService importService;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private HttpCachePolicy httpCachePolicy;
+
 
     @PostMapping
     public ResponseEntity<Product> createProduct(@Valid @RequestBody Product product, Errors errors) throws Exception{
@@ -37,6 +66,25 @@ public class ProductController {
     }
 
 
+    // Import en masse : un produit JSON par ligne (application/x-ndjson) ou CSV avec en-tête (text/csv)
+    @PostMapping("/import")
+    @SqlQueryBudget(0)
+    public ResponseEntity<ImportReport> importProducts(
+            InputStream body,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType
+    ) throws Exception {
+        return ResponseEntity.ok(importService.importProducts(body, ImportService.isCsv(contentType)));
+    }
+
+
+    // Suppression en masse : DELETE /api/v1/products?ids=1,2,3
+    @DeleteMapping
+    public ResponseEntity<BulkDeleteReport> deleteProducts(
+            @RequestParam @NotEmpty @Size(max = BulkDeleteReport.MAX_IDS) List<Long> ids
+    ) {
+        return ResponseEntity.ok(service.deleteProducts(ids));
+    }
+
     @DeleteMapping("/{id}")
     public HttpStatus deleteProduct(@PathVariable long id) throws Exception{
         service.deleteProductById(id);
@@ -44,21 +92,80 @@ public class ProductController {
     }
 
 
+    // Export du catalogue (filtrable par boutique / catégorie) en NDJSON ou CSV, envoyé au fil de l'eau
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam Optional<Long> shopId,
+            @RequestParam Optional<Long> categoryId,
+            @RequestParam(defaultValue = "ndjson") String format
+    ) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        StreamingResponseBody body = output -> exportService.exportProducts(shopId, categoryId, csv, output);
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv") : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"products." + (csv ? "csv" : "ndjson") + "\"")
+                .body(body);
+    }
+
+
+    // Recherche plein texte (noms / descriptions par langue), filtres boutique / catégorie / prix en centimes
+    @GetMapping("/search")
+    public ResponseEntity<Page<Product>> searchProducts(
+            Pageable pageable,
+            @RequestParam(required = false) String q,
+            @RequestParam Optional<String> locale,
+            @RequestParam Optional<Long> shopId,
+            @RequestParam Optional<Long> categoryId,
+            @RequestParam Optional<Long> minPrice,
+            @RequestParam Optional<Long> maxPrice,
+            @RequestParam Optional<String> sortBy
+    ) {
+        return ResponseEntity.ok(service.searchProducts(
+                q, locale, shopId, categoryId, minPrice, maxPrice, sortBy, pageable));
+    }
+
+
+    // GET conditionnel : 304 si l'ETag (version du produit et de sa boutique) n'a pas changé
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable long id) throws Exception{
-        return ResponseEntity.ok().body(service.getProductById(id));
+    @SqlQueryBudget(4)
+    public ResponseEntity<Product> getProductById(@PathVariable long id, WebRequest request) throws Exception{
+        return httpCachePolicy.conditionalGet(request, "products", service.getProductEtag(id),
+                () -> service.getProductById(id));
     }
 
 
+    // Page (boutique par jointure), total, puis catégories et traductions de toute la page par lots
     @GetMapping
-
-    public ResponseEntity<Page<Product>> getProductsOfShop(
+    @SqlQueryBudget(4)
+    public ResponseEntity<?> getProductsOfShop(
             Pageable pageable,
             @RequestParam Optional<Long> shopId,
-            @RequestParam Optional<Long> categoryId
+            @RequestParam Optional<Long> categoryId,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String total,
+            @RequestParam(required = false) Optional<String> view,
+            @RequestParam(required = false) Optional<String> fields,
+            @RequestParam(required = false) Optional<String> locale
     ) {
+        // Représentation réduite (view=summary ou fields=...) : projection lue directement en base
+        FieldSelection selection = service.parseFieldSelection(view, fields);
+        if (!selection.isFull()) {
+            if (after != null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Field selection is not available with cursor pagination");
+            }
+            return ResponseEntity.ok(service.getShopProductProjection(
+                    selection, shopId, categoryId, locale, pageable, TotalMode.from(total)));
+        }
+        // Pagination par curseur : activée dès que le paramètre "after" est présent (vide pour la 1re page)
+        if (after != null) {
+            return ResponseEntity.ok(
+                    service.getShopProductWindow(shopId, categoryId, after, pageable.getPageSize())
+            );
+        }
         return ResponseEntity.ok(
-                service.getShopProductList(shopId, categoryId, pageable)
+                service.getShopProductList(shopId, categoryId, pageable, TotalMode.from(total))
         );
     }
 
@@ -67,4 +174,14 @@ public class ProductController {
     public ResponseEntity<Product> updateProduct(@Valid @RequestBody Product product, Errors errors) throws Exception{
         return ResponseEntity.ok().body(service.updateProduct(product));
     }
+
+    // Mise à jour partielle (JSON Merge Patch) ; If-Match ou champ "version" pour le contrôle de concurrence
+    @PatchMapping(value = "/{id}", consumes = {MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Product> patchProduct(
+            @PathVariable long id,
+            @RequestBody JsonNode patch,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+        return ResponseEntity.ok(service.patchProduct(id, patch, ifMatch));
+    }
 }
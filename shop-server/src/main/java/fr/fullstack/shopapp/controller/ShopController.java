@@ -1,18 +1,35 @@
 package fr.fullstack.shopapp.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import fr.fullstack.shopapp.config.HttpCachePolicy;
+import fr.fullstack.shopapp.config.SqlQueryBudget;
 import fr.fullstack.shopapp.model.Shop;
+import fr.fullstack.shopapp.service.ImportService;
 import fr.fullstack.shopapp.service.ShopService;
+import fr.fullstack.shopapp.util.BulkDeleteReport;
+import fr.fullstack.shopapp.util.FieldSelection;
+import fr.fullstack.shopapp.util.ImportReport;
+import fr.fullstack.shopapp.util.MergePatch;
+import fr.fullstack.shopapp.util.ShopSuggestion;
 import fr.fullstack.shopapp.util.ErrorValidation;
+import fr.fullstack.shopapp.util.TotalMode;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.Errors;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.io.InputStream;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -22,34 +39,103 @@ public class ShopController {
     @Autowired
     private ShopService service;
 
+    @Autowired
+    private ImportService importService;
+
+    @Autowired
+    private HttpCachePolicy httpCachePolicy;
+
     @PostMapping
     public ResponseEntity<Shop> createShop(@Valid @RequestBody Shop shop, Errors errors) throws Exception{
         return ResponseEntity.ok(service.createShop(shop));
     }
 
+    // Import en masse : une boutique JSON par ligne (application/x-ndjson) ou CSV avec en-tête (text/csv)
+    @PostMapping("/import")
+    @SqlQueryBudget(0)
+    public ResponseEntity<ImportReport> importShops(
+            InputStream body,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType
+    ) throws Exception {
+        return ResponseEntity.ok(importService.importShops(body, ImportService.isCsv(contentType)));
+    }
+
+    // Suppression en masse : DELETE /api/v1/shops?ids=1,2,3
+    @DeleteMapping
+    public ResponseEntity<BulkDeleteReport> deleteShops(
+            @RequestParam @NotEmpty @Size(max = BulkDeleteReport.MAX_IDS) List<Long> ids
+    ) {
+        return ResponseEntity.ok(service.deleteShops(ids));
+    }
+
     @DeleteMapping("/{id}")
     public HttpStatus deleteShop(@PathVariable long id) throws Exception{
+        service.deleteShopById(id);
         return HttpStatus.NO_CONTENT;
-
     }
 
+    // Page (ou résultats de recherche rechargés par id), total et horaires de toute la page
     @GetMapping
-    public ResponseEntity<Page<Shop>> getAllShops(
+    @SqlQueryBudget(5)
+    public ResponseEntity<?> getAllShops(
             Pageable pageable,
             @RequestParam(required = false) Optional<String> sortBy,
             @RequestParam(required = false) Optional<Boolean> inVacations,
             @RequestParam(required = false) Optional<String> createdAfter,
             @RequestParam(required = false) Optional<String> createdBefore,
-            @RequestParam(required = false) Optional<String> name
+            @RequestParam(required = false) Optional<String> name,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String total,
+            @RequestParam(required = false) Optional<String> facets,
+            @RequestParam(required = false) Optional<String> openAt,
+            @RequestParam(required = false) Optional<String> view,
+            @RequestParam(required = false) Optional<String> fields
     ) {
+        boolean searching = inVacations.isPresent() || createdAfter.isPresent() || createdBefore.isPresent()
+                || facets.isPresent() || openAt.isPresent()
+                || (name.isPresent() && !name.get().trim().isEmpty());
+        FieldSelection selection = service.parseFieldSelection(view, fields);
+
+        // Pagination par curseur : activée dès que le paramètre "after" est présent (vide pour la 1re page)
+        if (after != null) {
+            if (searching) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Cursor pagination is not available with search filters");
+            }
+            if (!selection.isFull()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Field selection is not available with cursor pagination");
+            }
+            return ResponseEntity.ok(service.getShopWindow(sortBy, after, pageable.getPageSize()));
+        }
+        // Représentation réduite (view=summary ou fields=...) : projection lue directement en base
+        if (!selection.isFull()) {
+            if (searching) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Field selection is not available with search filters");
+            }
+            return ResponseEntity.ok(service.getShopProjection(selection, sortBy, pageable, TotalMode.from(total)));
+        }
         return ResponseEntity.ok(
-                service.getShopList(sortBy, inVacations, createdAfter, createdBefore, name, pageable)
+                service.getShopList(sortBy, inVacations, createdAfter, createdBefore, name, pageable,
+                        TotalMode.from(total), facets, openAt)
         );
     }
 
+    // Autocomplétion du nom : id et nom uniquement, lus dans l'index sans passer par la base
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ShopSuggestion>> suggestShops(
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        return ResponseEntity.ok(service.suggestShops(q, size));
+    }
+
+    // GET conditionnel : 304 si l'ETag (version et compteurs) n'a pas changé, sans charger la boutique
     @GetMapping("/{id}")
-    public ResponseEntity<Shop> getShopById(@PathVariable long id) throws Exception{
-       return ResponseEntity.ok().body(service.getShopById(id));
+    @SqlQueryBudget(3)
+    public ResponseEntity<Shop> getShopById(@PathVariable long id, WebRequest request) throws Exception{
+       return httpCachePolicy.conditionalGet(request, "shops", service.getShopEtag(id), () -> service.getShopById(id));
     }
 
     @PutMapping
@@ -57,9 +143,29 @@ public class ShopController {
         return ResponseEntity.ok().body(service.updateShop(shop));
     }
 
+    // Mise à jour partielle (JSON Merge Patch) ; If-Match ou champ "version" pour le contrôle de concurrence
+    @PatchMapping(value = "/{id}", consumes = {MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Shop> patchShop(
+            @PathVariable long id,
+            @RequestBody JsonNode patch,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+        return ResponseEntity.ok(service.patchShop(id, patch, ifMatch));
+    }
+
     @GetMapping("/elasticsearch/indexes")
     public ResponseEntity<Map<String, Object>> getElasticsearchIndexes() {
         Map<String, Object> indexInfo = service.getElasticsearchIndexInfo();
         return ResponseEntity.ok(indexInfo);
     }
+
+    @GetMapping("/elasticsearch/indexing")
+    public ResponseEntity<Map<String, Object>> getElasticsearchIndexingStatus() {
+        return ResponseEntity.ok(service.getElasticsearchIndexingStatus());
+    }
+
+    @GetMapping("/elasticsearch/outbox")
+    public ResponseEntity<Map<String, Object>> getElasticsearchOutbox() {
+        return ResponseEntity.ok(service.getElasticsearchOutboxInfo());
+    }
 }
\ No newline at end of file
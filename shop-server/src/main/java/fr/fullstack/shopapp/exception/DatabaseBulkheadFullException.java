@@ -0,0 +1,14 @@
+package fr.fullstack.shopapp.exception;
+
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * Aucune connexion JDBC n'a pu être obtenue dans le délai de la cloison : la requête est rejetée (503)
+ * plutôt que de s'ajouter à la file d'attente du pool.
+ */
+public class DatabaseBulkheadFullException extends SQLTransientConnectionException {
+
+    public DatabaseBulkheadFullException(String message) {
+        super(message);
+    }
+}
@@ -1,18 +1,26 @@
 package fr.fullstack.shopapp.exception;
 
 import fr.fullstack.shopapp.util.ErrorValidation;
+import jakarta.persistence.OptimisticLockException;
+import org.springframework.context.MessageSourceResolvable;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.InitBinder;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.validation.DataBinder;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
@@ -30,15 +38,50 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorMessage);
     }
 
+    // Contraintes sur les paramètres de requête (@NotEmpty, @Size... sur un @RequestParam)
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    public ResponseEntity<String> handleMethodValidationException(HandlerMethodValidationException ex) {
+        String errorMessage = ex.getAllErrors().stream()
+                .map(MessageSourceResolvable::getDefaultMessage)
+                .collect(Collectors.joining("; "));
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorMessage);
+    }
+
+    // Paramètre de requête obligatoire absent ou non convertible (ex. ids=abc)
+    @ExceptionHandler({MissingServletRequestParameterException.class, MethodArgumentTypeMismatchException.class})
+    public ResponseEntity<String> handleRequestParameterException(Exception ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+    }
+
     // Gestion des ResponseStatusException
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity<String> handleResponseStatusException(ResponseStatusException ex) {
         return ResponseEntity.status(ex.getStatusCode()).body(ex.getReason());
     }
 
+    // Modification concurrente détectée par la colonne version, y compris au commit
+    // (incrément forcé OPTIMISTIC_FORCE_INCREMENT, traduit par JpaTransactionManager)
+    @ExceptionHandler({OptimisticLockingFailureException.class, OptimisticLockException.class})
+    public ResponseEntity<String> handleOptimisticLockException(Exception ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body("The resource was modified concurrently, reload it and retry");
+    }
+
     // Gestion globale des autres exceptions
     @ExceptionHandler(Exception.class)
     public ResponseEntity<String> handleGlobalException(Exception ex) {
+        // Cloison JDBC saturée (souvent enveloppée par Spring / Hibernate) : le client peut réessayer
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DatabaseBulkheadFullException) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .body(cause.getMessage());
+            }
+            // Budget d'instructions SQL dépassé (shop.sql.budget.mode=reject) : message explicite
+            if (cause instanceof SqlQueryBudgetExceededException) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(cause.getMessage());
+            }
+        }
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body("Une erreur interne est survenue : " + ex.getMessage());
     }
@@ -0,0 +1,12 @@
+package fr.fullstack.shopapp.exception;
+
+/**
+ * Levée (shop.sql.budget.mode=reject) avant l'instruction SQL qui dépasserait le budget de la requête HTTP :
+ * une régression N+1 échoue franchement au lieu de dégrader les temps de réponse.
+ */
+public class SqlQueryBudgetExceededException extends RuntimeException {
+
+    public SqlQueryBudgetExceededException(String message) {
+        super(message);
+    }
+}
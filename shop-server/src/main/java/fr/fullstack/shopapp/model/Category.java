@@ -9,18 +9,27 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
 @Table(name = "categories")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Category {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private long id;
 
+    // Verrouillage optimiste et ETag
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     @Size(min = 1, max = 255, message = "Name must be between 1 and 255 characters")
     @NotNull(message = "Name may not be null")
     @Column(nullable = false)
@@ -42,6 +51,10 @@ public class Category {
         return products;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public void setId(long id) {
         this.id = id;
     }
@@ -53,4 +66,8 @@ public class Category {
     public void setProducts(List<Product> products) {
         this.products = products;
     }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
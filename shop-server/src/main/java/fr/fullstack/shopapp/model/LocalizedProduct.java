@@ -10,9 +10,12 @@ import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "LocalizedProduct")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class LocalizedProduct {
     @Column
     @Size(min = 1, max = 255, message = "Description must be between 1 and 255 characters")
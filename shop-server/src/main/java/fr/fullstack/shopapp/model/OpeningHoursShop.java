@@ -11,10 +11,13 @@ import jakarta.persistence.Table;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalTime;
 
 @Entity
 @Table(name = "openingHours")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class OpeningHoursShop {
     @Column(nullable = false)
     @JsonFormat(pattern = "HH:mm:ss")
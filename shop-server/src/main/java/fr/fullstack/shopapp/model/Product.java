@@ -1,5 +1,8 @@
 package fr.fullstack.shopapp.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import fr.fullstack.shopapp.search.LocalizedProductsBinder;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -12,41 +15,73 @@ import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PositiveOrZero;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.search.engine.backend.types.Sortable;
+import org.hibernate.search.mapper.pojo.automaticindexing.ReindexOnUpdate;
+import org.hibernate.search.mapper.pojo.bridge.mapping.annotation.PropertyBinderRef;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.GenericField;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.Indexed;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.IndexingDependency;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.ObjectPath;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.PropertyBinding;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.PropertyValue;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
 @Table(name = "products")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Indexed(index = "idx_products")
+@DynamicUpdate // UPDATE limité aux colonnes modifiées (PATCH)
 public class Product {
     @ManyToMany
     @JoinTable(
             name = "products_categories",
             joinColumns = @JoinColumn(name = "product_id"),
             inverseJoinColumns = @JoinColumn(name = "category_id"))
+    @BatchSize(size = 50)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<Category> categories = new ArrayList<Category>();
 
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private long id;
 
+    // Verrouillage optimiste : exposé aux clients pour l'en-tête If-Match
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     @OneToMany(cascade = {CascadeType.ALL}, orphanRemoval = true)
+    @BatchSize(size = 50)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @Size(min = 1, message = "At least one name and one description must be provided")
+    // Un champ analysé par langue ; réindexé explicitement par ProductService quand les traductions changent
+    @PropertyBinding(binder = @PropertyBinderRef(type = LocalizedProductsBinder.class))
+    @IndexingDependency(reindexOnUpdate = ReindexOnUpdate.SHALLOW)
     private List<@Valid LocalizedProduct> localizedProduct = new ArrayList<LocalizedProduct>();
 
     // ...
     @Column(nullable = false)
     @PositiveOrZero(message = "Price must be positive")
     @NotNull(message = "Price may not be null")
+    @GenericField(sortable = Sortable.YES) // Prix en centimes
     private long price;
 
 
 // ...
 
+    // Résumé de la boutique uniquement (id, nom, congés) : évite de charger ses horaires dans les listes
     @ManyToOne
+    @JsonIgnoreProperties({"openingHours", "nbProducts", "nbCategories", "createdAt", "version"})
     private Shop shop;
 
     public List<Category> getCategories() {
@@ -57,6 +92,17 @@ public class Product {
         return id;
     }
 
+    @JsonIgnore
+    @GenericField(name = "categoryIds")
+    @IndexingDependency(derivedFrom = @ObjectPath(@PropertyValue(propertyName = "categories")))
+    public List<Long> getCategoryIds() {
+        List<Long> categoryIds = new ArrayList<>();
+        for (Category category : categories) {
+            categoryIds.add(category.getId());
+        }
+        return categoryIds;
+    }
+
     public List<LocalizedProduct> getLocalizedProducts() {
         return localizedProduct;
     }
@@ -69,6 +115,17 @@ public class Product {
         return shop;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    @JsonIgnore
+    @GenericField(name = "shopId")
+    @IndexingDependency(derivedFrom = @ObjectPath(@PropertyValue(propertyName = "shop")))
+    public Long getShopId() {
+        return shop != null ? shop.getId() : null;
+    }
+
     public void setCategories(List<Category> categories) {
         this.categories = categories;
     }
@@ -92,4 +149,8 @@ public class Product {
     public void setShop(Shop shop) {
         this.shop = shop;
     }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,72 @@
+package fr.fullstack.shopapp.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+/**
+ * Point de reprise de la réindexation de masse : dernier id indexé d'un index donné,
+ * et version du mapping avec laquelle l'index a été construit.
+ * Permet de reprendre après un arrêt brutal au lieu de tout réindexer.
+ */
+@Entity
+@Table(name = "search_index_checkpoint")
+public class SearchIndexCheckpoint {
+    @Column(nullable = false)
+    private boolean completed;
+
+    @Id
+    @Column(name = "index_name")
+    private String indexName;
+
+    @Column(name = "last_id", nullable = false)
+    private long lastId;
+
+    @Column(name = "mapping_version", nullable = false)
+    private int mappingVersion;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    public SearchIndexCheckpoint() {
+    }
+
+    public SearchIndexCheckpoint(String indexName, int mappingVersion) {
+        this.indexName = indexName;
+        this.mappingVersion = mappingVersion;
+        this.updatedAt = Instant.now();
+    }
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public long getLastId() {
+        return lastId;
+    }
+
+    public int getMappingVersion() {
+        return mappingVersion;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+        this.updatedAt = Instant.now();
+    }
+
+    public void setLastId(long lastId) {
+        this.lastId = lastId;
+        this.updatedAt = Instant.now();
+    }
+}
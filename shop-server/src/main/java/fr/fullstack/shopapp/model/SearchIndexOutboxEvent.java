@@ -0,0 +1,80 @@
+package fr.fullstack.shopapp.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+/**
+ * Changement d'entité à répercuter dans l'index Elasticsearch (mode d'indexation "outbox",
+ * ou réindexation en cascade dans les deux modes).
+ * Écrit dans la transaction métier, puis consommé par SearchIndexOutboxWorker.
+ */
+@Entity
+@Table(name = "search_index_outbox")
+public class SearchIndexOutboxEvent {
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "entity_id", nullable = false)
+    private long entityId;
+
+    @Column(name = "entity_type", nullable = false)
+    private String entityType;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Column(name = "process_after", nullable = false)
+    private Instant processAfter;
+
+    public SearchIndexOutboxEvent() {
+    }
+
+    public SearchIndexOutboxEvent(String entityType, long entityId) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.createdAt = Instant.now();
+        this.processAfter = this.createdAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getEntityId() {
+        return entityId;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Instant getProcessAfter() {
+        return processAfter;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public void setProcessAfter(Instant processAfter) {
+        this.processAfter = processAfter;
+    }
+}
@@ -2,71 +2,115 @@ package fr.fullstack.shopapp.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import fr.fullstack.shopapp.search.SearchAnalyzers;
+import fr.fullstack.shopapp.search.WeeklyScheduleBinder;
 import fr.fullstack.shopapp.validation.ValidOpeningHours;
 import jakarta.persistence.*;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
-import org.hibernate.annotations.Formula;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.search.engine.backend.types.Aggregable;
+import org.hibernate.search.engine.backend.types.Projectable;
 import org.hibernate.search.engine.backend.types.Sortable;
+import org.hibernate.search.mapper.pojo.automaticindexing.ReindexOnUpdate;
+import org.hibernate.search.mapper.pojo.bridge.mapping.annotation.PropertyBinderRef;
 import org.hibernate.search.mapper.pojo.mapping.definition.annotation.FullTextField;
 import org.hibernate.search.mapper.pojo.mapping.definition.annotation.GenericField;
 import org.hibernate.search.mapper.pojo.mapping.definition.annotation.Indexed;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.IndexingDependency;
 import org.hibernate.search.mapper.pojo.mapping.definition.annotation.KeywordField;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.ObjectPath;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.PropertyBinding;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.PropertyValue;
 
 import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
 @Table(name = "shops")
 @Indexed(index = "idx_shops")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@DynamicUpdate // UPDATE limité aux colonnes modifiées (PATCH)
 public class Shop {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "shop_generator")
-    @SequenceGenerator(name="shop_generator", sequenceName = "hibernate_sequence", allocationSize=1)
+    @SequenceGenerator(name="shop_generator", sequenceName = "hibernate_sequence", allocationSize=50)
     private long id;
 
+    // Verrouillage optimiste : exposé aux clients pour l'en-tête If-Match
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     @JsonFormat(pattern = "yyyy-MM-dd")
-    @GenericField(sortable = Sortable.YES)
+    @GenericField(sortable = Sortable.YES, aggregable = Aggregable.YES)
     private LocalDate createdAt;
 
     @Column(nullable = false)
     @NotNull(message = "InVacations may not be null")
-    @GenericField
+    @GenericField(aggregable = Aggregable.YES)
     private boolean inVacations;
 
     @Column(nullable = false)
     @Size(min = 1, max = 255, message = "Name must be between 1 and 255 characters")
     @NotNull(message = "Name may not be null")
     @FullTextField
-    @KeywordField(name = "name_sort", sortable = Sortable.YES) // AJOUT : Champ dédié au tri alphabétique
+    @FullTextField(name = "name_autocomplete", analyzer = SearchAnalyzers.AUTOCOMPLETE_INDEXING,
+            searchAnalyzer = SearchAnalyzers.AUTOCOMPLETE_SEARCH)
+    @KeywordField(name = "name_sort", sortable = Sortable.YES, projectable = Projectable.YES) // AJOUT : Champ dédié au tri alphabétique
     private String name;
 
-    @Formula(value = "(SELECT COUNT(*) FROM products p WHERE p.shop_id = id)")
-    @GenericField(sortable = Sortable.YES) // AJOUT : Indexer le nombre de produits pour le tri
+    // Compteurs dénormalisés, maintenus par ShopCounterService (jamais écrits via l'entité)
+    @Column(name = "nb_products", insertable = false, updatable = false)
+    @GenericField(sortable = Sortable.YES, aggregable = Aggregable.YES) // AJOUT : Indexer le nombre de produits pour le tri
     private Long nbProducts;
 
-    @Formula("(SELECT COUNT(DISTINCT pc.category_id) FROM products_categories pc " +
-            "JOIN products p ON pc.product_id = p.id " +
-            "WHERE p.shop_id = id)")
+    @Column(name = "nb_categories", insertable = false, updatable = false)
     private Long nbCategories;
 
-    @OneToMany(cascade = {CascadeType.ALL})
+    // orphanRemoval : les créneaux remplacés (PATCH, PUT) sont supprimés et non laissés orphelins en base
+    @OneToMany(cascade = {CascadeType.ALL}, orphanRemoval = true)
+    @BatchSize(size = 50)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @ValidOpeningHours
+    // Planning hebdomadaire pour le filtre openAt ; les créneaux modifiés sont réindexés par ShopService
+    @PropertyBinding(binder = @PropertyBinderRef(type = WeeklyScheduleBinder.class))
+    @IndexingDependency(reindexOnUpdate = ReindexOnUpdate.SHALLOW)
     private List<@Valid OpeningHoursShop> openingHours = new ArrayList<>();
 
     @OneToMany(mappedBy = "shop", fetch = FetchType.LAZY)
     @JsonIgnore
     private List<Product> products = new ArrayList<>();
     public LocalDate getCreatedAt() { return createdAt; }
+
+    // Clés des facettes de date de création (Hibernate Search n'a pas d'histogramme de dates commun aux backends)
+    @JsonIgnore
+    @KeywordField(name = "createdAtMonth", aggregable = Aggregable.YES)
+    @IndexingDependency(derivedFrom = @ObjectPath(@PropertyValue(propertyName = "createdAt")))
+    public String getCreatedAtMonth() {
+        return createdAt == null ? null : createdAt.format(DateTimeFormatter.ofPattern("yyyy-MM"));
+    }
+
+    @JsonIgnore
+    @KeywordField(name = "createdAtYear", aggregable = Aggregable.YES)
+    @IndexingDependency(derivedFrom = @ObjectPath(@PropertyValue(propertyName = "createdAt")))
+    public String getCreatedAtYear() {
+        return createdAt == null ? null : String.valueOf(createdAt.getYear());
+    }
     public long getId() { return id; }
     public boolean getInVacations() { return inVacations; }
     public String getName() { return name; }
+    public long getVersion() { return version; }
     public Long getNbProducts() { return nbProducts; }
     public Long getNbCategories() { return nbCategories; }
     public List<OpeningHoursShop> getOpeningHours() { return openingHours; }
@@ -75,6 +119,7 @@ public class Shop {
     public void setId(long id) { this.id = id; }
     public void setInVacations(boolean inVacations) { this.inVacations = inVacations; }
     public void setName(String name) { this.name = name; }
+    public void setVersion(long version) { this.version = version; }
     public void setNbProducts(Long nbProducts) { this.nbProducts = nbProducts; }
     public void setNbCategories(Long nbCategories) { this.nbCategories = nbCategories; }
     public void setOpeningHours(List<OpeningHoursShop> openingHours) { this.openingHours = openingHours; }
@@ -1,10 +1,34 @@
 package fr.fullstack.shopapp.repository;
 
 import fr.fullstack.shopapp.model.Category;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface CategoryRepository extends JpaRepository<Category, Long> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Page<Category> findByOrderByIdAsc(Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Slice<Category> findSliceByOrderByIdAsc(Pageable pageable);
+
+    @Query("SELECT str(c.version) FROM Category c WHERE c.id = ?1")
+    Optional<String> findEtagById(long id);
+
+    // ETag de la liste : nombre, id max et somme des versions changent à chaque création / modification / suppression
+    @Query("SELECT CONCAT(str(COUNT(c)), '-', str(COALESCE(MAX(c.id), 0)), '-', str(COALESCE(SUM(c.version), 0))) "
+            + "FROM Category c")
+    String findListEtag();
+
+    @Query("SELECT c.id FROM Category c WHERE c.id IN ?1")
+    List<Long> findExistingIds(Collection<Long> ids);
 }
@@ -1,19 +1,117 @@
 package fr.fullstack.shopapp.repository;
 
 import fr.fullstack.shopapp.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
+    // La boutique est chargée par jointure, les collections par lots (@BatchSize) : nombre fixe de requêtes par page
+    String BY_SHOP = "SELECT p FROM Product p WHERE p.shop.id = ?1";
+
+    String BY_SHOP_AND_CATEGORY = "SELECT p FROM Product p JOIN p.categories c WHERE p.shop.id = ?1 AND c.id = ?2";
+
+    @EntityGraph(attributePaths = "shop")
     Page<Product> findByOrderByIdAsc(Pageable pageable);
 
-    @Query(value = "SELECT * FROM Products WHERE shop_id = ?1", nativeQuery = true)
+    @EntityGraph(attributePaths = "shop")
+    @Query(value = BY_SHOP, countQuery = "SELECT COUNT(p) FROM Product p WHERE p.shop.id = ?1")
     Page<Product> findByShop(Long shopId, Pageable pageable);
 
-    @Query(value = "SELECT * FROM Products p WHERE p.shop_id = ?1 AND p.id IN (SELECT pc.product_id FROM "
-            + "products_categories pc WHERE pc.category_id = ?2)",
-           nativeQuery = true)
+    @EntityGraph(attributePaths = "shop")
+    @Query(value = BY_SHOP_AND_CATEGORY,
+           countQuery = "SELECT COUNT(p) FROM Product p JOIN p.categories c WHERE p.shop.id = ?1 AND c.id = ?2")
     Page<Product> findByShopAndCategory(Long shopId, Long categoryId, Pageable pageable);
+
+    // SLICES (sans requête COUNT)
+    @EntityGraph(attributePaths = "shop")
+    Slice<Product> findSliceByOrderByIdAsc(Pageable pageable);
+
+    @EntityGraph(attributePaths = "shop")
+    @Query(BY_SHOP)
+    Slice<Product> findSliceByShop(Long shopId, Pageable pageable);
+
+    @EntityGraph(attributePaths = "shop")
+    @Query(BY_SHOP_AND_CATEGORY)
+    Slice<Product> findSliceByShopAndCategory(Long shopId, Long categoryId, Pageable pageable);
+
+    // KEYSET PAGINATION
+    @EntityGraph(attributePaths = "shop")
+    Window<Product> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    @EntityGraph(attributePaths = "shop")
+    Window<Product> findByShopId(Long shopId, ScrollPosition position, Sort sort, Limit limit);
+
+    @EntityGraph(attributePaths = "shop")
+    Window<Product> findByShopIdAndCategoriesId(
+            Long shopId, Long categoryId, ScrollPosition position, Sort sort, Limit limit);
+
+    // ETag : version du produit, de la boutique résumée et des catégories incluses dans sa représentation
+    // (nombre et somme des versions : un renommage ou une suppression de catégorie change l'ETag)
+    @Query("SELECT CONCAT(str(p.version), '-', str(COALESCE(s.version, 0)), '-', "
+            + "(SELECT CONCAT(str(COUNT(c)), '-', str(COALESCE(SUM(c.version), 0))) "
+            + "FROM Product p2 JOIN p2.categories c WHERE p2.id = p.id)) "
+            + "FROM Product p LEFT JOIN p.shop s WHERE p.id = ?1")
+    Optional<String> findEtagById(long id);
+
+    // SET-BASED DELETES
+    // Les espaces de requête déclarés limitent l'invalidation du cache de second niveau aux tables modifiées
+    @Query("SELECT p.id FROM Product p WHERE p.id IN ?1")
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    @Query(value = "SELECT DISTINCT shop_id FROM products WHERE id IN (?1) AND shop_id IS NOT NULL", nativeQuery = true)
+    List<Long> findShopIdsByIds(Collection<Long> ids);
+
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "products"))
+    @Query(value = "UPDATE products SET shop_id = NULL WHERE shop_id IN (?1)", nativeQuery = true)
+    int detachFromShops(Collection<Long> shopIds);
+
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "products_categories"))
+    @Query(value = "DELETE FROM products_categories WHERE category_id IN (?1)", nativeQuery = true)
+    int detachFromCategories(Collection<Long> categoryIds);
+
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "products_categories"))
+    @Query(value = "DELETE FROM products_categories WHERE product_id IN (?1)", nativeQuery = true)
+    int deleteCategoryLinks(Collection<Long> ids);
+
+    // Suppression des traductions et de leur table de liaison en une seule instruction
+    @Modifying(flushAutomatically = true)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "products_localized_product"),
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "localized_product")
+    })
+    @Query(
+            value = "WITH links AS (DELETE FROM products_localized_product WHERE product_id IN (?1) "
+                    + "RETURNING localized_product_id) "
+                    + "DELETE FROM localized_product WHERE id IN (SELECT localized_product_id FROM links)",
+            nativeQuery = true
+    )
+    int deleteLocalizedProducts(Collection<Long> ids);
+
+    // MASS INDEXING
+    long countByIdGreaterThan(long id);
+
+    @Query(
+            value = "SELECT MAX(chunk.id) FROM (SELECT id FROM products WHERE id > ?1 ORDER BY id LIMIT ?2) chunk",
+            nativeQuery = true
+    )
+    Long findChunkUpperBound(long afterId, int chunkSize);
 }
@@ -0,0 +1,90 @@
+package fr.fullstack.shopapp.repository;
+
+import fr.fullstack.shopapp.model.Locale;
+import fr.fullstack.shopapp.model.Product;
+import fr.fullstack.shopapp.search.LocalizedProductsBinder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.search.engine.search.query.SearchResult;
+import org.hibernate.search.mapper.orm.Search;
+import org.hibernate.search.mapper.orm.session.SearchSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public class ProductSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Transactional(readOnly = true)
+    public Page<Product> search(
+            String query,
+            Optional<String> locale,
+            Optional<Long> shopId,
+            Optional<Long> categoryId,
+            Optional<Long> minPrice,
+            Optional<Long> maxPrice,
+            Optional<String> sortBy,
+            Pageable pageable
+    ) {
+        SearchSession searchSession = Search.session(entityManager);
+        List<Locale> locales = locales(locale);
+        String[] nameFields = locales.stream().map(LocalizedProductsBinder::nameField).toArray(String[]::new);
+        String[] descriptionFields = locales.stream()
+                .map(LocalizedProductsBinder::descriptionField).toArray(String[]::new);
+
+        // Durée des requêtes au backend de recherche (métrique shop.search.requests)
+        Timer timer = meterRegistry.timer("shop.search.requests", "index", "idx_products", "operation", "search");
+        SearchResult<Product> result = timer.record(() -> searchSession.search(Product.class)
+                .where(f -> f.bool(b -> {
+                    if (query != null && !query.trim().isEmpty()) {
+                        // Les noms pèsent plus que les descriptions
+                        b.must(f.match().fields(nameFields).boost(2.0f).fields(descriptionFields)
+                                .matching(query).fuzzy(1));
+                    } else {
+                        b.must(f.matchAll());
+                    }
+                    shopId.ifPresent(val -> b.filter(f.match().field("shopId").matching(val)));
+                    categoryId.ifPresent(val -> b.filter(f.match().field("categoryIds").matching(val)));
+                    minPrice.ifPresent(val -> b.filter(f.range().field("price").atLeast(val)));
+                    maxPrice.ifPresent(val -> b.filter(f.range().field("price").atMost(val)));
+                }))
+                .sort(f -> {
+                    if (sortBy.isPresent()) {
+                        switch (sortBy.get()) {
+                            case "price": return f.field("price").asc();
+                            case "-price": return f.field("price").desc();
+                        }
+                    }
+                    return f.score();
+                })
+                .fetch((int) pageable.getOffset(), pageable.getPageSize()));
+
+        return new PageImpl<>(result.hits(), pageable, result.total().hitCount());
+    }
+
+    // Une langue connue restreint la recherche aux champs de cette langue, sinon toutes les langues
+    private List<Locale> locales(Optional<String> locale) {
+        List<Locale> locales = new ArrayList<>();
+        for (Locale value : Locale.values()) {
+            if (locale.isEmpty() || value.name().equalsIgnoreCase(locale.get())) {
+                locales.add(value);
+            }
+        }
+        return locales.isEmpty() ? List.of(Locale.values()) : locales;
+    }
+}
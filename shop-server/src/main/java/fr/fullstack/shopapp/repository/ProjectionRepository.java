@@ -0,0 +1,249 @@
+package fr.fullstack.shopapp.repository;
+
+import fr.fullstack.shopapp.util.FieldSelection;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Listes en représentation réduite (view=summary ou fields=...) : seules les colonnes demandées sont lues,
+ * sans hydrater les entités. Les collections demandées (horaires, catégories, traductions) sont chargées
+ * en une requête par collection pour toute la page.
+ */
+@Repository
+public class ProjectionRepository {
+
+    public static final List<String> SHOP_FIELDS = List.of(
+            "id", "name", "createdAt", "inVacations", "nbProducts", "nbCategories", "version", "openingHours");
+
+    // Champs affichés par ShopCard
+    public static final List<String> SHOP_SUMMARY = List.of(
+            "id", "name", "createdAt", "inVacations", "nbProducts", "nbCategories");
+
+    public static final List<String> PRODUCT_FIELDS = List.of(
+            "id", "price", "version", "shop", "categories", "localizedProducts");
+
+    // Champs affichés par ProductCard (la boutique est réduite à son id et son nom)
+    public static final List<String> PRODUCT_SUMMARY = List.of(
+            "id", "price", "shop", "categories", "localizedProducts");
+
+    public static final List<String> CATEGORY_FIELDS = List.of("id", "name", "version");
+
+    public static final List<String> CATEGORY_SUMMARY = List.of("id", "name");
+
+    private static final Map<String, String> SHOP_COLUMNS = Map.of(
+            "id", "s.id",
+            "name", "s.name",
+            "createdAt", "s.createdAt",
+            "inVacations", "s.inVacations",
+            "nbProducts", "s.nbProducts",
+            "nbCategories", "s.nbCategories",
+            "version", "s.version");
+
+    private static final Map<String, String> PRODUCT_COLUMNS = Map.of(
+            "id", "p.id",
+            "price", "p.price",
+            "version", "p.version");
+
+    private static final Map<String, String> CATEGORY_COLUMNS = Map.of(
+            "id", "c.id",
+            "name", "c.name",
+            "version", "c.version");
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Transactional(readOnly = true)
+    public Slice<Map<String, Object>> findShops(FieldSelection selection, Optional<String> sortBy, Pageable pageable) {
+        String orderBy = switch (sortBy.orElse("")) {
+            case "" -> "s.id";
+            case "name" -> "s.name, s.id";
+            case "createdAt" -> "s.createdAt, s.id";
+            default -> "s.nbProducts DESC, s.id";
+        };
+        Slice<Map<String, Object>> rows = select(
+                columns(selection, SHOP_COLUMNS), "FROM Shop s", Map.of(), orderBy, pageable);
+
+        if (selection.contains("openingHours")) {
+            Map<Long, List<Object>> openingHours = children(
+                    "SELECT s.id, o FROM Shop s JOIN s.openingHours o WHERE s.id IN :ids ORDER BY o.day, o.openAt",
+                    rows, Map.of(), row -> row[1]);
+            rows.forEach(row -> row.put("openingHours", openingHours.getOrDefault(row.get("id"), List.of())));
+        }
+        return rows.map(row -> ordered(row, selection));
+    }
+
+    @Transactional(readOnly = true)
+    public long countShops() {
+        return count("FROM Shop s", Map.of());
+    }
+
+    // locale : ne renvoie que les traductions dans cette langue (et le français, toujours présent)
+    @Transactional(readOnly = true)
+    public Slice<Map<String, Object>> findProducts(
+            FieldSelection selection,
+            Optional<Long> shopId,
+            Optional<Long> categoryId,
+            Optional<String> locale,
+            Pageable pageable
+    ) {
+        Map<String, Object> parameters = new HashMap<>();
+        String from = productsFrom(shopId, categoryId, parameters);
+        Map<String, String> columns = columns(selection, PRODUCT_COLUMNS);
+        if (selection.contains("shop")) {
+            columns.put("shop.id", "s.id");
+            columns.put("shop.name", "s.name");
+            columns.put("shop.inVacations", "s.inVacations");
+        }
+        Slice<Map<String, Object>> rows = select(columns, from, parameters, "p.id", pageable);
+
+        if (selection.contains("shop")) {
+            rows.forEach(row -> {
+                Object id = row.remove("shop.id");
+                Map<String, Object> shop = new LinkedHashMap<>();
+                shop.put("id", id);
+                shop.put("name", row.remove("shop.name"));
+                shop.put("inVacations", row.remove("shop.inVacations"));
+                row.put("shop", id == null ? null : shop);
+            });
+        }
+        if (selection.contains("categories")) {
+            Map<Long, List<Object>> categories = children(
+                    "SELECT p.id, c.id, c.name FROM Product p JOIN p.categories c WHERE p.id IN :ids ORDER BY c.id",
+                    rows, Map.of(), row -> {
+                        Map<String, Object> category = new LinkedHashMap<>();
+                        category.put("id", row[1]);
+                        category.put("name", row[2]);
+                        return category;
+                    });
+            rows.forEach(row -> row.put("categories", categories.getOrDefault(row.get("id"), List.of())));
+        }
+        if (selection.contains("localizedProducts")) {
+            String jpql = "SELECT p.id, lp FROM Product p JOIN p.localizedProduct lp WHERE p.id IN :ids";
+            Map<String, Object> localeParameters = new HashMap<>();
+            if (locale.isPresent() && !locale.get().isBlank()) {
+                jpql += " AND lp.locale IN :locales";
+                localeParameters.put("locales", List.of(locale.get().toUpperCase(), "FR"));
+            }
+            Map<Long, List<Object>> localizedProducts = children(jpql, rows, localeParameters, row -> row[1]);
+            rows.forEach(row -> row.put("localizedProducts", localizedProducts.getOrDefault(row.get("id"), List.of())));
+        }
+        return rows.map(row -> ordered(row, selection));
+    }
+
+    @Transactional(readOnly = true)
+    public long countProducts(Optional<Long> shopId, Optional<Long> categoryId) {
+        Map<String, Object> parameters = new HashMap<>();
+        return count(productsFrom(shopId, categoryId, parameters), parameters);
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<Map<String, Object>> findCategories(FieldSelection selection, Pageable pageable) {
+        Slice<Map<String, Object>> rows = select(
+                columns(selection, CATEGORY_COLUMNS), "FROM Category c", Map.of(), "c.id", pageable);
+        return rows.map(row -> ordered(row, selection));
+    }
+
+    @Transactional(readOnly = true)
+    public long countCategories() {
+        return count("FROM Category c", Map.of());
+    }
+
+    private String productsFrom(Optional<Long> shopId, Optional<Long> categoryId, Map<String, Object> parameters) {
+        StringBuilder from = new StringBuilder("FROM Product p LEFT JOIN p.shop s");
+        List<String> conditions = new ArrayList<>();
+        if (categoryId.isPresent()) {
+            from.append(" JOIN p.categories c");
+            conditions.add("c.id = :categoryId");
+            parameters.put("categoryId", categoryId.get());
+        }
+        if (shopId.isPresent()) {
+            conditions.add("s.id = :shopId");
+            parameters.put("shopId", shopId.get());
+        }
+        if (!conditions.isEmpty()) {
+            from.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        return from.toString();
+    }
+
+    // L'id est toujours lu : il sert à rattacher les collections et au tri
+    private Map<String, String> columns(FieldSelection selection, Map<String, String> available) {
+        Map<String, String> columns = new LinkedHashMap<>();
+        columns.put("id", available.get("id"));
+        for (String field : selection.getFields()) {
+            if (available.containsKey(field)) {
+                columns.put(field, available.get(field));
+            }
+        }
+        return columns;
+    }
+
+    private Slice<Map<String, Object>> select(
+            Map<String, String> columns, String from, Map<String, Object> parameters, String orderBy, Pageable pageable) {
+        List<String> keys = new ArrayList<>(columns.keySet());
+        TypedQuery<Tuple> query = em.createQuery(
+                "SELECT " + String.join(", ", columns.values()) + " " + from + " ORDER BY " + orderBy, Tuple.class);
+        parameters.forEach(query::setParameter);
+        // Une ligne de plus que la page pour savoir s'il y a une suite, sans COUNT
+        List<Tuple> tuples = query
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+
+        boolean hasNext = tuples.size() > pageable.getPageSize();
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Tuple tuple : hasNext ? tuples.subList(0, pageable.getPageSize()) : tuples) {
+            Map<String, Object> row = new HashMap<>();
+            for (int i = 0; i < keys.size(); i++) {
+                row.put(keys.get(i), tuple.get(i));
+            }
+            rows.add(row);
+        }
+        return new SliceImpl<>(rows, pageable, hasNext);
+    }
+
+    private Map<Long, List<Object>> children(
+            String jpql, Slice<Map<String, Object>> rows, Map<String, Object> parameters, Function<Object[], Object> mapper) {
+        Map<Long, List<Object>> children = new HashMap<>();
+        if (!rows.hasContent()) {
+            return children;
+        }
+        List<Long> ids = rows.stream().map(row -> (Long) row.get("id")).toList();
+        TypedQuery<Object[]> query = em.createQuery(jpql, Object[].class).setParameter("ids", ids);
+        parameters.forEach(query::setParameter);
+        for (Object[] result : query.getResultList()) {
+            children.computeIfAbsent((Long) result[0], id -> new ArrayList<>()).add(mapper.apply(result));
+        }
+        return children;
+    }
+
+    private long count(String from, Map<String, Object> parameters) {
+        TypedQuery<Long> query = em.createQuery("SELECT COUNT(*) " + from, Long.class);
+        parameters.forEach(query::setParameter);
+        return query.getSingleResult();
+    }
+
+    // Réponse dans l'ordre des champs demandés, sans l'id s'il n'a pas été demandé
+    private Map<String, Object> ordered(Map<String, Object> row, FieldSelection selection) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (String field : selection.getFields()) {
+            result.put(field, row.get(field));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,60 @@
+package fr.fullstack.shopapp.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Estimations du nombre de lignes fournies par le planificateur PostgreSQL,
+ * pour éviter un COUNT(*) exact sur les grosses tables.
+ * Les méthodes renvoient -1 quand aucune estimation n'est disponible (table jamais analysée).
+ */
+@Repository
+public class RowEstimateRepository {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Transactional(readOnly = true)
+    public long estimateTableRows(String tableName) {
+        List<?> result = entityManager
+                .createNativeQuery("SELECT reltuples::bigint FROM pg_class WHERE relname = ?1 AND relkind = 'r'")
+                .setParameter(1, tableName)
+                .getResultList();
+        if (result.isEmpty()) {
+            return -1;
+        }
+        return ((Number) result.get(0)).longValue();
+    }
+
+    // La requête ne doit contenir que des valeurs littérales numériques (pas de paramètres liés)
+    @Transactional(readOnly = true)
+    public long estimateQueryRows(String sql) {
+        try {
+            // JDBC direct : le plan est renvoyé dans une colonne de type json
+            String plan = entityManager.unwrap(Session.class).doReturningWork(connection -> {
+                try (Statement statement = connection.createStatement();
+                     ResultSet resultSet = statement.executeQuery("EXPLAIN (FORMAT JSON) " + sql)) {
+                    return resultSet.next() ? resultSet.getString(1) : null;
+                }
+            });
+            if (plan == null) {
+                return -1;
+            }
+            JsonNode root = MAPPER.readTree(plan);
+            return root.get(0).get("Plan").get("Plan Rows").asLong(-1);
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package fr.fullstack.shopapp.repository;
+
+import fr.fullstack.shopapp.model.SearchIndexCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface SearchIndexCheckpointRepository extends JpaRepository<SearchIndexCheckpoint, String> {
+}
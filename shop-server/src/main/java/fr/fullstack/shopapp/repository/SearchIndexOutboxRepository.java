@@ -0,0 +1,45 @@
+package fr.fullstack.shopapp.repository;
+
+import fr.fullstack.shopapp.model.SearchIndexOutboxEvent;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface SearchIndexOutboxRepository extends JpaRepository<SearchIndexOutboxEvent, Long> {
+    // SKIP LOCKED : plusieurs workers consomment la file en parallèle sans se bloquer
+    @Query(
+            value = "SELECT * FROM search_index_outbox WHERE process_after <= now() "
+                    + "ORDER BY id LIMIT ?1 FOR UPDATE SKIP LOCKED",
+            nativeQuery = true
+    )
+    List<SearchIndexOutboxEvent> claimBatch(int batchSize);
+
+    // Mise en file des produits touchés par une cascade, sans charger leurs ids en mémoire
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "search_index_outbox"))
+    @Query(
+            value = "INSERT INTO search_index_outbox (entity_type, entity_id) "
+                    + "SELECT DISTINCT 'Product', product_id FROM products_categories WHERE category_id IN (?1)",
+            nativeQuery = true
+    )
+    int enqueueProductsOfCategories(Collection<Long> categoryIds);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "search_index_outbox"))
+    @Query(
+            value = "INSERT INTO search_index_outbox (entity_type, entity_id) "
+                    + "SELECT 'Product', id FROM products WHERE shop_id IN (?1)",
+            nativeQuery = true
+    )
+    int enqueueProductsOfShops(Collection<Long> shopIds);
+
+    @Query("SELECT MIN(e.createdAt) FROM SearchIndexOutboxEvent e")
+    Instant findOldestCreatedAt();
+}
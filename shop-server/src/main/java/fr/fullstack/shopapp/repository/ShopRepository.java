@@ -1,12 +1,24 @@
 package fr.fullstack.shopapp.repository;
 
 import fr.fullstack.shopapp.model.Shop;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface ShopRepository extends JpaRepository<Shop, Long> {
     Page<Shop> findByCreatedAtBetween(LocalDate dateStart, LocalDate dateEnd, Pageable pageable);
@@ -35,15 +47,8 @@ public interface ShopRepository extends JpaRepository<Shop, Long> {
     Page<Shop> findByOrderByNameAsc(Pageable pageable);
 
     @Query(
-            value = "SELECT *,"
-                    + "(SELECT COUNT(*) FROM products p WHERE p.shop_id = s.id) as nbProducts, "
-                    + "(SELECT COUNT(DISTINCT pc.category_id) FROM products_categories pc WHERE pc.product_id IN "
-                    + "(SELECT p.id FROM products p WHERE p.shop_id = s.id)) as nbCategories "
-                    + "FROM shops s "
-                    + "ORDER BY (SELECT COUNT(*) FROM products p WHERE p.shop_id = s.id) DESC",
-            countQuery = "SELECT * "
-                    + "FROM shops s "
-                    + "ORDER BY (SELECT COUNT(*) FROM products p WHERE p.shop_id = s.id) DESC",
+            value = "SELECT * FROM shops s ORDER BY s.nb_products DESC, s.id ASC",
+            countQuery = "SELECT COUNT(*) FROM shops",
             nativeQuery = true
     )
     Page<Shop> findByOrderByNbProductsAsc(Pageable pageable);
@@ -67,4 +72,127 @@ public interface ShopRepository extends JpaRepository<Shop, Long> {
 
     Page<Shop> findByNameContainingIgnoreCaseAndCreatedAtBetween(
             String name, LocalDate dateStart, LocalDate dateEnd, Pageable pageable);
+
+    // SLICES (sans requête COUNT)
+    Slice<Shop> findSliceByOrderByIdAsc(Pageable pageable);
+
+    Slice<Shop> findSliceByOrderByNameAsc(Pageable pageable);
+
+    Slice<Shop> findSliceByOrderByCreatedAtAsc(Pageable pageable);
+
+    @Query(value = "SELECT * FROM shops s ORDER BY s.nb_products DESC, s.id ASC", nativeQuery = true)
+    Slice<Shop> findSliceByOrderByNbProductsAsc(Pageable pageable);
+
+    // KEYSET PAGINATION
+    Window<Shop> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    // SET-BASED DELETES
+    // ETag : version et compteurs (les compteurs sont mis à jour en SQL sans changer la version)
+    @Query("SELECT CONCAT(str(s.version), '-', str(s.nbProducts), '-', str(s.nbCategories)) FROM Shop s WHERE s.id = ?1")
+    Optional<String> findEtagById(long id);
+
+    @Query("SELECT s.id FROM Shop s WHERE s.id IN ?1")
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    // Suppression des horaires et de leur table de liaison en une seule instruction
+    @Modifying(flushAutomatically = true)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "shops_opening_hours"),
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "opening_hours")
+    })
+    @Query(
+            value = "WITH links AS (DELETE FROM shops_opening_hours WHERE shop_id IN (?1) "
+                    + "RETURNING opening_hours_id) "
+                    + "DELETE FROM opening_hours WHERE id IN (SELECT opening_hours_id FROM links)",
+            nativeQuery = true
+    )
+    int deleteOpeningHours(Collection<Long> ids);
+
+    // MASS INDEXING (découpage en tranches d'ids)
+    long countByIdGreaterThan(long id);
+
+    @Query(
+            value = "SELECT MAX(chunk.id) FROM (SELECT id FROM shops WHERE id > ?1 ORDER BY id LIMIT ?2) chunk",
+            nativeQuery = true
+    )
+    Long findChunkUpperBound(long afterId, int chunkSize);
+
+    // COUNTERS
+    // Espace de requête sans région de cache : les UPDATE de compteurs n'évincent aucune entité (et non toute
+    // la région Shop à chaque écriture du catalogue) ; ShopCounterService évince les seules boutiques concernées.
+    // Mise à jour incrémentale : seuls les produits concernés et leurs catégories sont lus, pas toute la boutique
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = COUNTERS_SPACE))
+    @Query(
+            value = "UPDATE shops s SET nb_products = s.nb_products + d.nb_products, "
+                    + "nb_categories = s.nb_categories + d.nb_categories "
+                    + "FROM (" + PRODUCTS_COUNTERS_SUBQUERY + ") d WHERE s.id = d.shop_id",
+            nativeQuery = true
+    )
+    int addProductsToCounters(Collection<Long> productIds);
+
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = COUNTERS_SPACE))
+    @Query(
+            value = "UPDATE shops s SET nb_products = s.nb_products - d.nb_products, "
+                    + "nb_categories = s.nb_categories - d.nb_categories "
+                    + "FROM (" + PRODUCTS_COUNTERS_SUBQUERY + ") d WHERE s.id = d.shop_id",
+            nativeQuery = true
+    )
+    int subtractProductsFromCounters(Collection<Long> productIds);
+
+    // Chaque catégorie supprimée encore utilisée dans une boutique lui retire une catégorie
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = COUNTERS_SPACE))
+    @Query(
+            value = "UPDATE shops s SET nb_categories = s.nb_categories - c.nb_categories "
+                    + "FROM (SELECT p.shop_id, COUNT(DISTINCT pc.category_id) AS nb_categories "
+                    + "FROM products_categories pc JOIN products p ON p.id = pc.product_id "
+                    + "WHERE pc.category_id IN (?1) GROUP BY p.shop_id) c "
+                    + "WHERE s.id = c.shop_id",
+            nativeQuery = true
+    )
+    int subtractCategoriesFromCounters(Collection<Long> categoryIds);
+
+    @Query(
+            value = "SELECT DISTINCT p.shop_id FROM products p "
+                    + "JOIN products_categories pc ON pc.product_id = p.id "
+                    + "WHERE pc.category_id IN (?1) AND p.shop_id IS NOT NULL",
+            nativeQuery = true
+    )
+    List<Long> findShopIdsByCategories(Collection<Long> categoryIds);
+
+    @Query(
+            value = "SELECT c.id FROM (" + COUNTERS_SUBQUERY + ") c JOIN shops s ON s.id = c.id "
+                    + "WHERE s.nb_products <> c.nb_products OR s.nb_categories <> c.nb_categories",
+            nativeQuery = true
+    )
+    List<Long> findShopIdsWithStaleCounters();
+
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = COUNTERS_SPACE))
+    @Query(
+            value = "UPDATE shops s SET nb_products = c.nb_products, nb_categories = c.nb_categories "
+                    + "FROM (" + COUNTERS_SUBQUERY + ") c "
+                    + "WHERE s.id = c.id AND (s.nb_products <> c.nb_products OR s.nb_categories <> c.nb_categories)",
+            nativeQuery = true
+    )
+    int repairCounters();
+
+    String COUNTERS_SPACE = "shop_counters";
+
+    // Par boutique : nombre de produits de la liste, et nombre de leurs catégories qu'aucun autre produit
+    // de la boutique n'utilise (celles que la boutique gagne ou perd avec ces produits)
+    String PRODUCTS_COUNTERS_SUBQUERY = "SELECT p.shop_id, COUNT(DISTINCT p.id) AS nb_products, "
+            + "COUNT(DISTINCT pc.category_id) FILTER (WHERE NOT EXISTS ("
+            + "SELECT 1 FROM products_categories pc2 JOIN products p2 ON p2.id = pc2.product_id "
+            + "WHERE p2.shop_id = p.shop_id AND pc2.category_id = pc.category_id AND p2.id NOT IN (?1))) AS nb_categories "
+            + "FROM products p LEFT JOIN products_categories pc ON pc.product_id = p.id "
+            + "WHERE p.id IN (?1) AND p.shop_id IS NOT NULL GROUP BY p.shop_id";
+
+    String COUNTERS_SUBQUERY = "SELECT s2.id, COUNT(DISTINCT p.id) AS nb_products, "
+            + "COUNT(DISTINCT pc.category_id) AS nb_categories "
+            + "FROM shops s2 LEFT JOIN products p ON p.shop_id = s2.id "
+            + "LEFT JOIN products_categories pc ON pc.product_id = p.id "
+            + "GROUP BY s2.id";
 }
@@ -1,11 +1,27 @@
 package fr.fullstack.shopapp.repository;
 
 import fr.fullstack.shopapp.model.Shop;
+import fr.fullstack.shopapp.search.ShopSearchCache;
+import fr.fullstack.shopapp.search.WeeklyScheduleBinder;
+import fr.fullstack.shopapp.util.FacetedPage;
+import fr.fullstack.shopapp.util.ShopSuggestion;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.Session;
+import org.hibernate.search.engine.search.aggregation.AggregationKey;
+import org.hibernate.search.engine.search.common.BooleanOperator;
+import org.hibernate.search.engine.search.predicate.dsl.PredicateFinalStep;
+import org.hibernate.search.engine.search.predicate.dsl.SearchPredicateFactory;
+import org.hibernate.search.engine.search.predicate.dsl.SimpleQueryFlag;
 import org.hibernate.search.engine.search.query.SearchResult;
+import org.hibernate.search.engine.search.sort.dsl.SearchSortFactory;
+import org.hibernate.search.engine.search.sort.dsl.SortFinalStep;
 import org.hibernate.search.mapper.orm.Search;
 import org.hibernate.search.mapper.orm.session.SearchSession;
+import org.hibernate.search.util.common.data.Range;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -13,53 +29,181 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 @Repository
 public class ShopSearchRepository {
 
+    private static final int MAX_DATE_BUCKETS = 1000;
+
+    private static final AggregationKey<Map<Boolean, Long>> IN_VACATIONS_FACET = AggregationKey.of("inVacations");
+
+    private static final AggregationKey<Map<String, Long>> CREATED_AT_FACET = AggregationKey.of("createdAt");
+
+    private static final AggregationKey<Map<Range<Long>, Long>> NB_PRODUCTS_FACET = AggregationKey.of("nbProducts");
+
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Autowired
+    private ShopSearchCache searchCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Transactional(readOnly = true)
     public Page<Shop> search(
             String query,
             Optional<Boolean> inVacations,
             Optional<LocalDate> createdAfter,
             Optional<LocalDate> createdBefore,
+            Optional<Integer> openAt,
             Optional<String> sortBy,
             Pageable pageable
     ) {
+        ShopSearchCache.Key key = searchCache.key(query, inVacations, createdAfter, createdBefore, openAt, sortBy,
+                pageable.getPageNumber(), pageable.getPageSize());
+        ShopSearchCache.Entry cached = searchCache.get(key);
+        if (cached != null) {
+            // Chargement groupé par ids, servi en priorité par le cache de second niveau
+            List<Shop> shops = entityManager.unwrap(Session.class).byMultipleIds(Shop.class)
+                    .multiLoad(cached.ids())
+                    .stream()
+                    .filter(Objects::nonNull)
+                    .toList();
+            return new PageImpl<>(shops, pageable, cached.total());
+        }
+
         SearchSession searchSession = Search.session(entityManager);
 
-        SearchResult<Shop> result = searchSession.search(Shop.class)
-                .where(f -> f.bool(b -> {
-                    if (query != null && !query.trim().isEmpty()) {
-                        b.must(f.match().field("name").matching(query).fuzzy(2));
-                    } else {
-                        b.must(f.matchAll());
-                    }
-                    inVacations.ifPresent(val -> b.filter(f.match().field("inVacations").matching(val)));
-                    createdAfter.ifPresent(val -> b.filter(f.range().field("createdAt").atLeast(val)));
-                    createdBefore.ifPresent(val -> b.filter(f.range().field("createdAt").atMost(val)));
-                }))
-                .sort(f -> {
-                    if (sortBy.isPresent()) {
-                        switch (sortBy.get()) {
-                            case "name": return f.field("name_sort").asc();
-                            case "createdAt": return f.field("createdAt").asc();
-                            case "nbProducts": return f.field("nbProducts").asc();
-                        }
-                    }
-                    return f.score();
-                })
-                .fetch((int) pageable.getOffset(), pageable.getPageSize());
+        SearchResult<Shop> result = timer("search").record(() -> searchSession.search(Shop.class)
+                .where(f -> predicate(f, query, inVacations, createdAfter, createdBefore, openAt))
+                .sort(f -> sort(f, sortBy))
+                .fetch((int) pageable.getOffset(), pageable.getPageSize()));
 
+        searchCache.put(key, result.hits().stream().map(Shop::getId).toList(), result.total().hitCount());
         return new PageImpl<>(result.hits(), pageable, result.total().hitCount());
     }
 
+    // Résultats et facettes dans une seule requête au backend de recherche ; les facettes tiennent compte des filtres
+    @Transactional(readOnly = true)
+    public FacetedPage<Shop> searchWithFacets(
+            String query,
+            Optional<Boolean> inVacations,
+            Optional<LocalDate> createdAfter,
+            Optional<LocalDate> createdBefore,
+            Optional<Integer> openAt,
+            Optional<String> sortBy,
+            String facetInterval,
+            Pageable pageable
+    ) {
+        SearchSession searchSession = Search.session(entityManager);
+
+        SearchResult<Shop> result = timer("facets").record(() -> searchSession.search(Shop.class)
+                .where(f -> predicate(f, query, inVacations, createdAfter, createdBefore, openAt))
+                .sort(f -> sort(f, sortBy))
+                .aggregation(IN_VACATIONS_FACET, f -> f.terms().field("inVacations", Boolean.class))
+                .aggregation(CREATED_AT_FACET, f -> f.terms()
+                        .field("year".equals(facetInterval) ? "createdAtYear" : "createdAtMonth", String.class)
+                        .orderByTermAscending()
+                        .maxTermCount(MAX_DATE_BUCKETS))
+                // Tranches : [0], [1-9], [10-49], [50-99], [100+]
+                .aggregation(NB_PRODUCTS_FACET, f -> f.range().field("nbProducts", Long.class)
+                        .range(0L, 1L)
+                        .range(1L, 10L)
+                        .range(10L, 50L)
+                        .range(50L, 100L)
+                        .range(Range.atLeast(100L)))
+                .fetch((int) pageable.getOffset(), pageable.getPageSize()));
+
+        Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+
+        Map<String, Long> inVacationsFacet = new LinkedHashMap<>();
+        result.aggregation(IN_VACATIONS_FACET).forEach((key, count) -> inVacationsFacet.put(key.toString(), count));
+        facets.put("inVacations", inVacationsFacet);
+
+        facets.put("createdAt", result.aggregation(CREATED_AT_FACET));
+
+        Map<String, Long> nbProductsFacet = new LinkedHashMap<>();
+        result.aggregation(NB_PRODUCTS_FACET).forEach((range, count) -> nbProductsFacet.put(label(range), count));
+        facets.put("nbProducts", nbProductsFacet);
+
+        return new FacetedPage<>(result.hits(), pageable, result.total().hitCount(), facets);
+    }
+
+    // Autocomplétion : préfixes de mots sur le champ edge n-gram, id et nom projetés depuis l'index
+    @Transactional(readOnly = true)
+    public List<ShopSuggestion> suggest(String prefix, int size) {
+        SearchSession searchSession = Search.session(entityManager);
+
+        return timer("suggest").record(() -> searchSession.search(Shop.class)
+                .select(f -> f.composite()
+                        .from(f.id(Long.class), f.field("name_sort", String.class))
+                        .as(ShopSuggestion::new))
+                .where(f -> f.simpleQueryString().field("name_autocomplete")
+                        .matching(prefix)
+                        .defaultOperator(BooleanOperator.AND)
+                        .flags(EnumSet.noneOf(SimpleQueryFlag.class)))
+                .sort(f -> f.score().then().field("name_sort").asc())
+                .fetchHits(size));
+    }
+
+    // Durée des requêtes au backend de recherche (métrique shop.search.requests), hors cache de résultats
+    private Timer timer(String operation) {
+        return meterRegistry.timer("shop.search.requests", "index", "idx_shops", "operation", operation);
+    }
+
+    private PredicateFinalStep predicate(
+            SearchPredicateFactory f,
+            String query,
+            Optional<Boolean> inVacations,
+            Optional<LocalDate> createdAfter,
+            Optional<LocalDate> createdBefore,
+            Optional<Integer> openAt
+    ) {
+        return f.bool(b -> {
+            if (query != null && !query.trim().isEmpty()) {
+                b.must(f.match().field("name").matching(query).fuzzy(2));
+            } else {
+                b.must(f.matchAll());
+            }
+            inVacations.ifPresent(val -> b.filter(f.match().field("inVacations").matching(val)));
+            createdAfter.ifPresent(val -> b.filter(f.range().field("createdAt").atLeast(val)));
+            createdBefore.ifPresent(val -> b.filter(f.range().field("createdAt").atMost(val)));
+            // Ouverte à la minute val de la semaine : un créneau du planning la contient
+            openAt.ifPresent(val -> b.filter(f.nested(WeeklyScheduleBinder.SCHEDULE)
+                    .add(f.range().field(WeeklyScheduleBinder.FROM).atMost(val))
+                    .add(f.range().field(WeeklyScheduleBinder.TO).greaterThan(val))));
+        });
+    }
+
+    private SortFinalStep sort(SearchSortFactory f, Optional<String> sortBy) {
+        if (sortBy.isPresent()) {
+            switch (sortBy.get()) {
+                case "name": return f.field("name_sort").asc();
+                case "createdAt": return f.field("createdAt").asc();
+                case "nbProducts": return f.field("nbProducts").asc();
+            }
+        }
+        return f.score();
+    }
+
+    private String label(Range<Long> range) {
+        long lower = range.lowerBoundValue().orElse(0L);
+        Optional<Long> upper = range.upperBoundValue();
+        if (upper.isEmpty()) {
+            return lower + "+";
+        }
+        long last = upper.get() - 1;
+        return lower == last ? String.valueOf(lower) : lower + "-" + last;
+    }
+
     public Map<String, Object> getIndexInfo() {
         Map<String, Object> indexInfo = new HashMap<>();
         try {
@@ -0,0 +1,28 @@
+package fr.fullstack.shopapp.search;
+
+import org.hibernate.search.backend.elasticsearch.analysis.ElasticsearchAnalysisConfigurationContext;
+import org.hibernate.search.backend.elasticsearch.analysis.ElasticsearchAnalysisConfigurer;
+
+/**
+ * Analyseurs personnalisés de l'index Elasticsearch ("french" et "english" sont intégrés à Elasticsearch).
+ * L'autocomplétion indexe les préfixes de chaque mot (edge n-grams) ; la saisie de l'utilisateur,
+ * elle, n'est pas découpée en n-grams afin qu'un préfixe ne corresponde qu'aux mots qui le commencent.
+ */
+public class ElasticsearchAnalysisConfig implements ElasticsearchAnalysisConfigurer {
+
+    @Override
+    public void configure(ElasticsearchAnalysisConfigurationContext context) {
+        context.analyzer(SearchAnalyzers.AUTOCOMPLETE_INDEXING).custom()
+                .tokenizer("standard")
+                .tokenFilters("lowercase", "asciifolding", "autocomplete_edge_ngram");
+
+        context.analyzer(SearchAnalyzers.AUTOCOMPLETE_SEARCH).custom()
+                .tokenizer("standard")
+                .tokenFilters("lowercase", "asciifolding");
+
+        context.tokenFilter("autocomplete_edge_ngram")
+                .type("edge_ngram")
+                .param("min_gram", 1)
+                .param("max_gram", 20);
+    }
+}
@@ -0,0 +1,86 @@
+package fr.fullstack.shopapp.search;
+
+import fr.fullstack.shopapp.model.Locale;
+import fr.fullstack.shopapp.model.LocalizedProduct;
+import org.hibernate.search.engine.backend.document.DocumentElement;
+import org.hibernate.search.engine.backend.document.IndexFieldReference;
+import org.hibernate.search.engine.backend.types.dsl.IndexFieldTypeFactory;
+import org.hibernate.search.mapper.pojo.bridge.PropertyBridge;
+import org.hibernate.search.mapper.pojo.bridge.binding.PropertyBindingContext;
+import org.hibernate.search.mapper.pojo.bridge.mapping.programmatic.PropertyBinder;
+import org.hibernate.search.mapper.pojo.bridge.runtime.PropertyBridgeWriteContext;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indexe les noms et descriptions de LocalizedProduct dans un champ par langue
+ * (name_fr, description_fr, name_en, ...), chacun analysé avec l'analyseur de sa langue.
+ */
+public class LocalizedProductsBinder implements PropertyBinder {
+
+    public static String nameField(Locale locale) {
+        return "name_" + locale.name().toLowerCase();
+    }
+
+    public static String descriptionField(Locale locale) {
+        return "description_" + locale.name().toLowerCase();
+    }
+
+    public static String analyzer(Locale locale) {
+        return locale == Locale.FR ? SearchAnalyzers.FRENCH : SearchAnalyzers.ENGLISH;
+    }
+
+    @Override
+    public void bind(PropertyBindingContext context) {
+        context.dependencies()
+                .use("locale")
+                .use("name")
+                .use("description");
+
+        IndexFieldTypeFactory factory = context.typeFactory();
+        Map<Locale, IndexFieldReference<String>> names = new EnumMap<>(Locale.class);
+        Map<Locale, IndexFieldReference<String>> descriptions = new EnumMap<>(Locale.class);
+        for (Locale locale : Locale.values()) {
+            names.put(locale, context.indexSchemaElement()
+                    .field(nameField(locale), factory.asString().analyzer(analyzer(locale)))
+                    .toReference());
+            descriptions.put(locale, context.indexSchemaElement()
+                    .field(descriptionField(locale), factory.asString().analyzer(analyzer(locale)))
+                    .toReference());
+        }
+
+        context.bridge(List.class, new Bridge(names, descriptions));
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static class Bridge implements PropertyBridge<List> {
+        private final Map<Locale, IndexFieldReference<String>> descriptions;
+
+        private final Map<Locale, IndexFieldReference<String>> names;
+
+        private Bridge(Map<Locale, IndexFieldReference<String>> names,
+                       Map<Locale, IndexFieldReference<String>> descriptions) {
+            this.names = names;
+            this.descriptions = descriptions;
+        }
+
+        @Override
+        public void write(DocumentElement target, List bridgedElement, PropertyBridgeWriteContext context) {
+            for (Object element : bridgedElement) {
+                LocalizedProduct localizedProduct = (LocalizedProduct) element;
+                Locale locale;
+                try {
+                    locale = Locale.valueOf(localizedProduct.getLocale());
+                } catch (IllegalArgumentException | NullPointerException e) {
+                    continue;
+                }
+                target.addValue(names.get(locale), localizedProduct.getName());
+                if (localizedProduct.getDescription() != null) {
+                    target.addValue(descriptions.get(locale), localizedProduct.getDescription());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package fr.fullstack.shopapp.search;
+
+import org.hibernate.search.backend.lucene.analysis.LuceneAnalysisConfigurationContext;
+import org.hibernate.search.backend.lucene.analysis.LuceneAnalysisConfigurer;
+
+/**
+ * Analyseurs de l'index Lucene embarqué, alignés sur ceux d'Elasticsearch :
+ * "french" et "english" reproduisent les analyseurs intégrés d'Elasticsearch,
+ * l'autocomplétion reprend la définition de ElasticsearchAnalysisConfig.
+ */
+public class LuceneAnalysisConfig implements LuceneAnalysisConfigurer {
+
+    @Override
+    public void configure(LuceneAnalysisConfigurationContext context) {
+        context.analyzer(SearchAnalyzers.FRENCH).custom()
+                .tokenizer("standard")
+                .tokenFilter("elision")
+                .tokenFilter("lowercase")
+                .tokenFilter("stop")
+                        .param("words", "org/apache/lucene/analysis/snowball/french_stop.txt")
+                        .param("format", "snowball")
+                .tokenFilter("frenchLightStem");
+
+        context.analyzer(SearchAnalyzers.ENGLISH).custom()
+                .tokenizer("standard")
+                .tokenFilter("englishPossessive")
+                .tokenFilter("lowercase")
+                .tokenFilter("stop")
+                .tokenFilter("porterStem");
+
+        context.analyzer(SearchAnalyzers.AUTOCOMPLETE_INDEXING).custom()
+                .tokenizer("standard")
+                .tokenFilter("lowercase")
+                .tokenFilter("asciiFolding")
+                .tokenFilter("edgeNGram")
+                        .param("minGramSize", "1")
+                        .param("maxGramSize", "20");
+
+        context.analyzer(SearchAnalyzers.AUTOCOMPLETE_SEARCH).custom()
+                .tokenizer("standard")
+                .tokenFilter("lowercase")
+                .tokenFilter("asciiFolding");
+    }
+}
@@ -0,0 +1,19 @@
+package fr.fullstack.shopapp.search;
+
+/**
+ * Noms des analyseurs utilisés par le mapping, définis à l'identique pour chaque backend
+ * (ElasticsearchAnalysisConfig, LuceneAnalysisConfig).
+ */
+public final class SearchAnalyzers {
+
+    public static final String FRENCH = "french";
+
+    public static final String ENGLISH = "english";
+
+    public static final String AUTOCOMPLETE_INDEXING = "autocomplete_indexing";
+
+    public static final String AUTOCOMPLETE_SEARCH = "autocomplete_search";
+
+    private SearchAnalyzers() {
+    }
+}
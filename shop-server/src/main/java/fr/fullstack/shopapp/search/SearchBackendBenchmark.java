@@ -0,0 +1,146 @@
+package fr.fullstack.shopapp.search;
+
+import fr.fullstack.shopapp.model.Shop;
+import fr.fullstack.shopapp.repository.ShopRepository;
+import fr.fullstack.shopapp.repository.ShopSearchRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.search.mapper.orm.Search;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Mesure comparative des backends de recherche (shop.search.backend=elasticsearch|lucene).
+ * Lancer l'application une fois par backend avec shop.search.benchmark.enabled=true,
+ * elasticsearch.reindex.on.startup=false et shop.search.cache.enabled=false, puis comparer les lignes
+ * "Search benchmark" des logs : débit de la réindexation complète de idx_shops et latences
+ * (p50 / p95 / p99) des requêtes de ShopSearchRepository.
+ */
+@Component
+@ConditionalOnProperty(name = "shop.search.benchmark.enabled", havingValue = "true")
+public class SearchBackendBenchmark implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchBackendBenchmark.class);
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ShopRepository shopRepository;
+
+    @Autowired
+    private ShopSearchRepository shopSearchRepository;
+
+    @Value("${shop.search.backend:elasticsearch}")
+    private String backend;
+
+    @Value("${shop.search.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${shop.search.benchmark.warmup:200}")
+    private int warmup;
+
+    @Value("${shop.search.benchmark.iterations:2000}")
+    private int iterations;
+
+    @Value("${elasticsearch.reindex.threads:4}")
+    private int threads;
+
+    @Value("${elasticsearch.reindex.batch-size:100}")
+    private int batchSize;
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        Thread thread = new Thread(this::run, "search-benchmark");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        try {
+            if (cacheEnabled) {
+                logger.warn("Search benchmark: shop.search.cache.enabled=true, search latencies include cache hits");
+            }
+            benchmarkIndexing();
+
+            List<String> prefixes = namePrefixes();
+            benchmarkQueries("search", i -> shopSearchRepository.search(
+                    prefixes.get(i % prefixes.size()), Optional.empty(), Optional.empty(), Optional.empty(),
+                    Optional.empty(), Optional.empty(), PageRequest.of(0, 20)));
+            benchmarkQueries("search-filtered", i -> shopSearchRepository.search(
+                    null, Optional.of(i % 2 == 0), Optional.of(LocalDate.now().minusYears(1 + i % 5)),
+                    Optional.empty(), Optional.of(i * 37 % WeeklyScheduleBinder.MINUTES_PER_WEEK),
+                    Optional.of("nbProducts"), PageRequest.of(i % 5, 20)));
+            benchmarkQueries("facets", i -> shopSearchRepository.searchWithFacets(
+                    null, Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(),
+                    i % 2 == 0 ? "month" : "year", PageRequest.of(0, 20)));
+            benchmarkQueries("suggest", i -> shopSearchRepository.suggest(prefixes.get(i % prefixes.size()), 10));
+        } catch (Exception e) {
+            logger.error("Search benchmark failed", e);
+        }
+    }
+
+    private void benchmarkIndexing() throws InterruptedException {
+        long count = shopRepository.count();
+        long start = System.nanoTime();
+        Search.mapping(entityManagerFactory).scope(Shop.class).massIndexer()
+                .threadsToLoadObjects(threads)
+                .batchSizeToLoadObjects(batchSize)
+                .purgeAllOnStart(true)
+                .startAndWait();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        logger.info("Search benchmark [{}] indexing: {} shops in {} s ({} docs/s)",
+                backend, count, String.format("%.2f", seconds), Math.round(count / Math.max(seconds, 1e-9)));
+    }
+
+    private void benchmarkQueries(String name, Query query) {
+        for (int i = 0; i < warmup; i++) {
+            query.run(i);
+        }
+        long[] latencies = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            query.run(i);
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        logger.info("Search benchmark [{}] {}: p50={} ms p95={} ms p99={} ms max={} ms ({} queries)",
+                backend, name, millis(percentile(latencies, 50)), millis(percentile(latencies, 95)),
+                millis(percentile(latencies, 99)), millis(latencies[latencies.length - 1]), iterations);
+    }
+
+    // Préfixes de 3 lettres des noms existants, pour des recherches qui trouvent des résultats
+    private List<String> namePrefixes() {
+        List<String> prefixes = new ArrayList<>();
+        for (Shop shop : shopRepository.findAll(PageRequest.of(0, 100))) {
+            String name = shop.getName().trim();
+            prefixes.add(name.length() > 3 ? name.substring(0, 3) : name);
+        }
+        return prefixes.isEmpty() ? List.of("shop") : prefixes;
+    }
+
+    private long percentile(long[] sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(index, 0)];
+    }
+
+    private String millis(long nanos) {
+        return String.format("%.2f", nanos / 1e6);
+    }
+
+    private interface Query {
+        void run(int iteration);
+    }
+}
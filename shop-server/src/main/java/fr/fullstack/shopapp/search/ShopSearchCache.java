@@ -0,0 +1,202 @@
+package fr.fullstack.shopapp.search;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache borné (LRU + TTL) des résultats de ShopSearchRepository.search : seuls les ids des boutiques
+ * et le total sont conservés, les entités étant rechargées depuis le cache de second niveau.
+ * Toute écriture sur un champ indexé d'une boutique incrémente la version, ce qui rend obsolètes toutes
+ * les entrées existantes ; un changement de compteur n'invalide que les recherches triées par nbProducts.
+ * L'invalidation n'a lieu qu'une fois l'index rafraîchi (délai shop.search.cache.invalidation-delay-ms après
+ * le commit) : d'ici là, les résultats ne sont plus mis en cache, l'index pouvant encore être périmé.
+ */
+@Component
+public class ShopSearchCache {
+
+    @Value("${shop.search.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${shop.search.cache.max-entries:1000}")
+    private int maxEntries;
+
+    @Value("${shop.search.cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    // Au moins l'intervalle de rafraîchissement de l'index (1 s par défaut pour Elasticsearch)
+    @Value("${shop.search.cache.invalidation-delay-ms:1500}")
+    private long invalidationDelayMs;
+
+    private final Generation shops = new Generation();
+
+    // Seules les recherches triées par nbProducts dépendent des compteurs
+    private final Generation counters = new Generation();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            if (size() > maxEntries) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    public Key key(
+            String query,
+            Optional<Boolean> inVacations,
+            Optional<LocalDate> createdAfter,
+            Optional<LocalDate> createdBefore,
+            Optional<Integer> openAt,
+            Optional<String> sortBy,
+            int page,
+            int size
+    ) {
+        String normalizedQuery = query == null ? "" : query.trim().toLowerCase();
+        bumpIfDue(shops);
+        bumpIfDue(counters);
+        String sort = sortBy.orElse("");
+        long countersVersion = sortedByCounters(sort) ? counters.version.get() : 0;
+        return new Key(shops.version.get(), countersVersion, normalizedQuery, inVacations.orElse(null),
+                createdAfter.orElse(null), createdBefore.orElse(null), openAt.orElse(null), sort, page, size);
+    }
+
+    public Entry get(Key key) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && entry.expiresAt() < System.currentTimeMillis()) {
+                entries.remove(key);
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return entry;
+    }
+
+    public void put(Key key, List<Long> ids, long total) {
+        // Une écriture a eu lieu pendant la recherche, ou l'index n'est pas encore rafraîchi :
+        // le résultat est peut-être déjà périmé
+        if (!enabled || key.version != shops.version.get() || shops.pendingUntil.get() != 0) {
+            return;
+        }
+        if (sortedByCounters(key.sortBy)
+                && (key.countersVersion != counters.version.get() || counters.pendingUntil.get() != 0)) {
+            return;
+        }
+        Entry entry = new Entry(List.copyOf(ids), total, System.currentTimeMillis() + ttlSeconds * 1000);
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    // Appelé à chaque création / modification / suppression de boutique ; effectif au commit de la transaction
+    public void invalidate() {
+        afterCommit(shops);
+    }
+
+    // Appelé quand seuls les compteurs d'une boutique changent (création / suppression de produit)
+    public void invalidateCounters() {
+        afterCommit(counters);
+    }
+
+    public Map<String, Object> getStatistics() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long lookups = hitCount + missCount;
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("enabled", enabled);
+        synchronized (entries) {
+            statistics.put("size", entries.size());
+        }
+        statistics.put("maxEntries", maxEntries);
+        statistics.put("hits", hitCount);
+        statistics.put("misses", missCount);
+        statistics.put("hitRate", lookups == 0 ? 0.0 : Math.round(hitCount * 1000.0 / lookups) / 1000.0);
+        statistics.put("evictions", evictions.get());
+        statistics.put("invalidations", invalidations.get());
+        statistics.put("version", shops.version.get());
+        statistics.put("countersVersion", counters.version.get());
+        return statistics;
+    }
+
+    private void afterCommit(Generation generation) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    schedule(generation);
+                }
+            });
+        } else {
+            schedule(generation);
+        }
+    }
+
+    private void schedule(Generation generation) {
+        long dueAt = System.currentTimeMillis() + invalidationDelayMs;
+        generation.pendingUntil.accumulateAndGet(dueAt, Math::max);
+    }
+
+    // Invalidation effective à la première recherche qui suit le rafraîchissement de l'index
+    private void bumpIfDue(Generation generation) {
+        long dueAt = generation.pendingUntil.get();
+        if (dueAt == 0 || dueAt > System.currentTimeMillis() || !generation.pendingUntil.compareAndSet(dueAt, 0)) {
+            return;
+        }
+        generation.version.incrementAndGet();
+        invalidations.incrementAndGet();
+        // Les entrées des versions précédentes ne seront plus jamais lues
+        synchronized (entries) {
+            if (generation == shops) {
+                entries.clear();
+            } else {
+                entries.keySet().removeIf(key -> sortedByCounters(key.sortBy()));
+            }
+        }
+    }
+
+    private static boolean sortedByCounters(String sortBy) {
+        return "nbProducts".equals(sortBy);
+    }
+
+    public record Key(long version, long countersVersion, String query, Boolean inVacations,
+                      LocalDate createdAfter, LocalDate createdBefore, Integer openAt, String sortBy, int page, int size) {
+    }
+
+    public record Entry(List<Long> ids, long total, long expiresAt) {
+    }
+
+    private static final class Generation {
+
+        private final AtomicLong version = new AtomicLong();
+
+        // Échéance de l'invalidation en attente (0 : aucune)
+        private final AtomicLong pendingUntil = new AtomicLong();
+    }
+}
@@ -0,0 +1,106 @@
+package fr.fullstack.shopapp.search;
+
+import fr.fullstack.shopapp.model.OpeningHoursShop;
+import org.hibernate.search.engine.backend.document.DocumentElement;
+import org.hibernate.search.engine.backend.document.IndexFieldReference;
+import org.hibernate.search.engine.backend.document.IndexObjectFieldReference;
+import org.hibernate.search.engine.backend.document.model.dsl.IndexSchemaObjectField;
+import org.hibernate.search.engine.backend.types.ObjectStructure;
+import org.hibernate.search.mapper.pojo.bridge.PropertyBridge;
+import org.hibernate.search.mapper.pojo.bridge.binding.PropertyBindingContext;
+import org.hibernate.search.mapper.pojo.bridge.mapping.programmatic.PropertyBinder;
+import org.hibernate.search.mapper.pojo.bridge.runtime.PropertyBridgeWriteContext;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Indexe les horaires d'ouverture sous forme d'un planning hebdomadaire précalculé :
+ * un objet imbriqué "schedule" par créneau, avec ses bornes en minutes depuis lundi 00:00 ([from, to[).
+ * "Ouvert à l'instant M" devient un simple filtre from <= M < to, sans jointure sur opening_hours.
+ * Les créneaux qui passent minuit (fermeture <= ouverture) se prolongent sur le jour suivant,
+ * et ceux qui débordent sur le lundi suivant sont découpés en deux.
+ */
+public class WeeklyScheduleBinder implements PropertyBinder {
+
+    public static final String SCHEDULE = "schedule";
+
+    public static final String FROM = SCHEDULE + ".from";
+
+    public static final String TO = SCHEDULE + ".to";
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    public static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+
+    // Jour 1 = lundi, comme OpeningHoursShop.day
+    public static int minuteOfWeek(DayOfWeek day, LocalTime time) {
+        return (day.getValue() - 1) * MINUTES_PER_DAY + time.getHour() * 60 + time.getMinute();
+    }
+
+    @Override
+    public void bind(PropertyBindingContext context) {
+        context.dependencies()
+                .use("day")
+                .use("openAt")
+                .use("closeAt");
+
+        IndexSchemaObjectField schedule = context.indexSchemaElement()
+                .objectField(SCHEDULE, ObjectStructure.NESTED)
+                .multiValued();
+        IndexFieldReference<Integer> from = schedule
+                .field("from", f -> f.asInteger())
+                .toReference();
+        IndexFieldReference<Integer> to = schedule
+                .field("to", f -> f.asInteger())
+                .toReference();
+
+        context.bridge(List.class, new Bridge(schedule.toReference(), from, to));
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static class Bridge implements PropertyBridge<List> {
+        private final IndexObjectFieldReference schedule;
+
+        private final IndexFieldReference<Integer> from;
+
+        private final IndexFieldReference<Integer> to;
+
+        private Bridge(IndexObjectFieldReference schedule,
+                       IndexFieldReference<Integer> from,
+                       IndexFieldReference<Integer> to) {
+            this.schedule = schedule;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public void write(DocumentElement target, List bridgedElement, PropertyBridgeWriteContext context) {
+            for (Object element : bridgedElement) {
+                OpeningHoursShop hours = (OpeningHoursShop) element;
+                if (hours.getOpenAt() == null || hours.getCloseAt() == null) {
+                    continue;
+                }
+                DayOfWeek day = DayOfWeek.of((int) hours.getDay());
+                int start = minuteOfWeek(day, hours.getOpenAt());
+                int end = minuteOfWeek(day, hours.getCloseAt());
+                if (end <= start) {
+                    end += MINUTES_PER_DAY;
+                }
+                if (end > MINUTES_PER_WEEK) {
+                    addSlot(target, start, MINUTES_PER_WEEK);
+                    addSlot(target, 0, end - MINUTES_PER_WEEK);
+                } else {
+                    addSlot(target, start, end);
+                }
+            }
+        }
+
+        private void addSlot(DocumentElement target, int start, int end) {
+            DocumentElement slot = target.addObject(schedule);
+            slot.addValue(from, start);
+            slot.addValue(to, end);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package fr.fullstack.shopapp.service;
+
+import fr.fullstack.shopapp.search.ShopSearchCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Service
+public class CacheStatisticsService {
+
+    private static final String[] REGION_ATTRIBUTES = {
+            "CacheHits", "CacheMisses", "CacheHitPercentage", "CachePuts", "CacheRemovals", "CacheEvictions"
+    };
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ShopSearchCache shopSearchCache;
+
+    public Map<String, Object> getStatistics() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Map<String, Object> secondLevel = new LinkedHashMap<>();
+        secondLevel.put("hits", statistics.getSecondLevelCacheHitCount());
+        secondLevel.put("misses", statistics.getSecondLevelCacheMissCount());
+        secondLevel.put("puts", statistics.getSecondLevelCachePutCount());
+
+        Map<String, Object> queryCache = new LinkedHashMap<>();
+        queryCache.put("hits", statistics.getQueryCacheHitCount());
+        queryCache.put("misses", statistics.getQueryCacheMissCount());
+        queryCache.put("puts", statistics.getQueryCachePutCount());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("secondLevelCache", secondLevel);
+        result.put("queryCache", queryCache);
+        result.put("regions", getRegionStatistics());
+        result.put("shopSearchResults", shopSearchCache.getStatistics());
+        return result;
+    }
+
+    // Statistiques JSR-107 publiées par Ehcache (enable-statistics dans ehcache.xml)
+    private Map<String, Map<String, Object>> getRegionStatistics() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Map<String, Map<String, Object>> regions = new TreeMap<>();
+        for (ObjectName name : server.queryNames(new ObjectName("javax.cache:type=CacheStatistics,*"), null)) {
+            Map<String, Object> region = new LinkedHashMap<>();
+            for (String attribute : REGION_ATTRIBUTES) {
+                region.put(attribute, server.getAttribute(name, attribute));
+            }
+            String cache = name.getKeyProperty("Cache");
+            regions.put(cache.startsWith("\"") ? ObjectName.unquote(cache) : cache, region);
+        }
+        return regions;
+    }
+}
@@ -1,17 +1,22 @@
 package fr.fullstack.shopapp.service;
 
 import fr.fullstack.shopapp.model.Category;
-import fr.fullstack.shopapp.model.Product;
 import fr.fullstack.shopapp.repository.CategoryRepository;
+import fr.fullstack.shopapp.repository.ProductRepository;
+import fr.fullstack.shopapp.repository.ProjectionRepository;
+import fr.fullstack.shopapp.repository.RowEstimateRepository;
+import fr.fullstack.shopapp.util.BulkDeleteReport;
+import fr.fullstack.shopapp.util.FieldSelection;
+import fr.fullstack.shopapp.util.TotalMode;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -19,59 +24,111 @@ public class CategoryService {
     @Autowired
     private CategoryRepository categoryRepository;
 
-    @PersistenceContext
-    private EntityManager em;
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private RowEstimateRepository rowEstimateRepository;
+
+    @Autowired
+    private ProjectionRepository projectionRepository;
+
+    @Autowired
+    private ShopCounterService shopCounterService;
+
+    @Autowired
+    private SearchIndexingService searchIndexingService;
 
     public Category createCategory(Category category) throws Exception {
         try {
             return categoryRepository.save(category);
         } catch (Exception e) {
-            throw new Exception(e.getMessage());
+            throw new Exception(e.getMessage(), e);
         }
     }
 
     @Transactional
     public void deleteCategoryById(long id) throws Exception {
         try {
-            Category category = getCategory(id);
-            // delete nested relations with products
-            deleteNestedRelations(category);
-            categoryRepository.deleteById(id);
+            getCategory(id);
+            deleteCategories(List.of(id));
         } catch (Exception e) {
-            throw new Exception(e.getMessage());
+            throw new Exception(e.getMessage(), e);
+        }
+    }
+
+    // Suppression ensembliste : les liaisons produits / catégories sont supprimées sans charger les produits
+    @Transactional
+    public BulkDeleteReport deleteCategories(List<Long> ids) {
+        List<Long> existingIds = categoryRepository.findExistingIds(ids);
+        if (!existingIds.isEmpty()) {
+            shopCounterService.subtractCategories(existingIds);
+            searchIndexingService.productsOfCategoriesChanged(existingIds);
+            productRepository.detachFromCategories(existingIds);
+            categoryRepository.deleteAllByIdInBatch(existingIds);
         }
+        return new BulkDeleteReport(ids, existingIds);
     }
 
     public Category getCategoryById(long id) throws Exception {
         try {
             return getCategory(id);
         } catch (Exception e) {
-            throw new Exception(e.getMessage());
+            throw new Exception(e.getMessage(), e);
         }
     }
 
-    public Page<Category> getCategoryList(Pageable pageable) {
-        return categoryRepository.findByOrderByIdAsc(pageable);
+    public Optional<String> getCategoryEtag(long id) {
+        return categoryRepository.findEtagById(id);
+    }
+
+    public String getCategoryListEtag() {
+        return categoryRepository.findListEtag();
+    }
+
+    public Slice<Category> getCategoryList(Pageable pageable, TotalMode total) {
+        switch (total) {
+            case NONE:
+                return categoryRepository.findSliceByOrderByIdAsc(pageable);
+            case ESTIMATE:
+                Slice<Category> slice = categoryRepository.findSliceByOrderByIdAsc(pageable);
+                long estimate = rowEstimateRepository.estimateTableRows("categories");
+                return TotalMode.estimatedPage(slice, pageable,
+                        estimate >= 0 ? estimate : categoryRepository.count());
+            default:
+                return categoryRepository.findByOrderByIdAsc(pageable);
+        }
+    }
+
+    public FieldSelection parseFieldSelection(Optional<String> view, Optional<String> fields) {
+        return FieldSelection.parse(view, fields,
+                ProjectionRepository.CATEGORY_FIELDS, ProjectionRepository.CATEGORY_SUMMARY);
+    }
+
+    public Slice<Map<String, Object>> getCategoryProjection(FieldSelection selection, Pageable pageable, TotalMode total) {
+        Slice<Map<String, Object>> slice = projectionRepository.findCategories(selection, pageable);
+        switch (total) {
+            case NONE:
+                return slice;
+            case ESTIMATE:
+                long estimate = rowEstimateRepository.estimateTableRows("categories");
+                return TotalMode.estimatedPage(slice, pageable,
+                        estimate >= 0 ? estimate : projectionRepository.countCategories());
+            default:
+                return new PageImpl<>(slice.getContent(), pageable, projectionRepository.countCategories());
+        }
     }
 
     public Category updateCategory(Category category) throws Exception {
         try {
-            getCategory(category.getId());
+            Category currentCategory = getCategory(category.getId());
+            // Sans version fournie, le PUT écrase la version courante (comportement historique)
+            if (category.getVersion() == 0) {
+                category.setVersion(currentCategory.getVersion());
+            }
             return this.createCategory(category);
         } catch (Exception e) {
-            throw new Exception(e.getMessage());
-        }
-    }
-
-    private void deleteNestedRelations(Category category) {
-        List<Product> products = category.getProducts();
-        for (int i = 0; i < products.size(); i++) {
-            Product product = products.get(i);
-            List<Category> categories = product.getCategories();
-            categories.remove(category);
-            product.setCategories(categories);
-            em.merge(product);
-            em.flush();
+            throw new Exception(e.getMessage(), e);
         }
     }
 
@@ -0,0 +1,187 @@
+package fr.fullstack.shopapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.fullstack.shopapp.model.Category;
+import fr.fullstack.shopapp.model.Locale;
+import fr.fullstack.shopapp.model.LocalizedProduct;
+import fr.fullstack.shopapp.model.Product;
+import fr.fullstack.shopapp.util.CsvParser;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Export du catalogue en flux NDJSON ou CSV depuis un curseur côté serveur.
+ * Le contexte de persistance est vidé régulièrement : la mémoire reste constante quelle que soit la taille du catalogue.
+ * Le prix est écrit en euros, comme attendu par l'import en masse.
+ */
+@Service
+public class ExportService {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${shop.export.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${shop.export.clear-interval:500}")
+    private int clearInterval;
+
+    @Transactional(readOnly = true)
+    public void exportProducts(Optional<Long> shopId, Optional<Long> categoryId, boolean csv, OutputStream output)
+            throws IOException {
+        Session session = em.unwrap(Session.class);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+
+        StringBuilder hql = new StringBuilder("SELECT p FROM Product p LEFT JOIN FETCH p.shop s");
+        categoryId.ifPresent(id -> hql.append(" JOIN p.categories c"));
+        List<String> where = new ArrayList<>();
+        shopId.ifPresent(id -> where.add("s.id = :shopId"));
+        categoryId.ifPresent(id -> where.add("c.id = :categoryId"));
+        if (!where.isEmpty()) {
+            hql.append(" WHERE ").append(String.join(" AND ", where));
+        }
+        hql.append(" ORDER BY p.id");
+
+        // Sur la session et pas seulement sur la requête : les chargements de collections ne remplissent
+        // pas non plus le cache de second niveau
+        CacheMode previousCacheMode = session.getCacheMode();
+        session.setCacheMode(CacheMode.IGNORE);
+        try {
+            Query<Product> query = session.createQuery(hql.toString(), Product.class)
+                    .setFetchSize(fetchSize)
+                    .setReadOnly(true);
+            shopId.ifPresent(id -> query.setParameter("shopId", id));
+            categoryId.ifPresent(id -> query.setParameter("categoryId", id));
+
+            if (csv) {
+                writer.write(csvHeader());
+            }
+
+            List<Product> chunk = new ArrayList<>(clearInterval);
+            try (ScrollableResults<Product> results = query.scroll(ScrollMode.FORWARD_ONLY)) {
+                while (results.next()) {
+                    chunk.add(results.get());
+                    if (chunk.size() >= clearInterval) {
+                        writeChunk(session, chunk, csv, writer);
+                    }
+                }
+            }
+            writeChunk(session, chunk, csv, writer);
+            writer.flush();
+        } finally {
+            session.setCacheMode(previousCacheMode);
+        }
+    }
+
+    // Traductions et catégories chargées en deux requêtes par paquet (et non une par produit),
+    // puis le paquet est écrit et détaché du contexte de persistance
+    private void writeChunk(Session session, List<Product> chunk, boolean csv, Writer writer) throws IOException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<Long> ids = chunk.stream().map(Product::getId).toList();
+        session.createQuery("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.localizedProduct "
+                        + "WHERE p.id IN :ids", Product.class)
+                .setParameter("ids", ids)
+                .setReadOnly(true)
+                .getResultList();
+        session.createQuery("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.categories "
+                        + "WHERE p.id IN :ids", Product.class)
+                .setParameter("ids", ids)
+                .setReadOnly(true)
+                .getResultList();
+
+        for (Product product : chunk) {
+            writer.write(csv ? csvLine(product) : jsonLine(product));
+        }
+        writer.flush();
+        session.clear();
+        chunk.clear();
+    }
+
+    private String jsonLine(Product product) throws IOException {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("id", product.getId());
+        record.put("price", euros(product));
+        record.put("shopId", product.getShop() != null ? product.getShop().getId() : null);
+        record.put("categoryIds", categoryIds(product));
+
+        List<Map<String, Object>> localizedProducts = new ArrayList<>();
+        for (LocalizedProduct localizedProduct : product.getLocalizedProducts()) {
+            Map<String, Object> localized = new LinkedHashMap<>();
+            localized.put("locale", localizedProduct.getLocale());
+            localized.put("name", localizedProduct.getName());
+            localized.put("description", localizedProduct.getDescription());
+            localizedProducts.add(localized);
+        }
+        record.put("localizedProducts", localizedProducts);
+        return objectMapper.writeValueAsString(record) + "\n";
+    }
+
+    private String csvHeader() {
+        StringBuilder line = new StringBuilder("id,price,shopId,categoryIds");
+        for (Locale locale : Locale.values()) {
+            line.append(",name_").append(locale.name()).append(",description_").append(locale.name());
+        }
+        return line.append("\n").toString();
+    }
+
+    private String csvLine(Product product) {
+        StringBuilder line = new StringBuilder();
+        line.append(product.getId()).append(',')
+                .append(euros(product)).append(',')
+                .append(product.getShop() != null ? product.getShop().getId() : "").append(',');
+
+        List<String> categoryIds = new ArrayList<>();
+        for (Long id : categoryIds(product)) {
+            categoryIds.add(id.toString());
+        }
+        line.append(CsvParser.formatField(String.join(";", categoryIds)));
+
+        for (Locale locale : Locale.values()) {
+            Optional<LocalizedProduct> localized = product.getLocalizedProducts().stream()
+                    .filter(o -> locale.name().equals(o.getLocale()))
+                    .findFirst();
+            line.append(',').append(CsvParser.formatField(localized.map(LocalizedProduct::getName).orElse(null)))
+                    .append(',').append(CsvParser.formatField(localized.map(LocalizedProduct::getDescription).orElse(null)));
+        }
+        return line.append("\n").toString();
+    }
+
+    private List<Long> categoryIds(Product product) {
+        List<Long> ids = new ArrayList<>();
+        for (Category category : product.getCategories()) {
+            ids.add(category.getId());
+        }
+        return ids;
+    }
+
+    private BigDecimal euros(Product product) {
+        return BigDecimal.valueOf(product.getPrice(), 2);
+    }
+}
@@ -0,0 +1,300 @@
+package fr.fullstack.shopapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.fullstack.shopapp.model.Category;
+import fr.fullstack.shopapp.model.LocalizedProduct;
+import fr.fullstack.shopapp.model.OpeningHoursShop;
+import fr.fullstack.shopapp.model.Product;
+import fr.fullstack.shopapp.model.Shop;
+import fr.fullstack.shopapp.util.CsvParser;
+import fr.fullstack.shopapp.util.ImportReport;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Import en masse de produits et de boutiques depuis un flux NDJSON ou CSV.
+ * Les lignes sont lues une à une, validées puis écrites par lots, chaque lot dans sa propre transaction :
+ * l'indexation Elasticsearch d'un lot n'a lieu qu'à son commit.
+ */
+@Service
+public class ImportService {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ShopCounterService shopCounterService;
+
+    @Autowired
+    private SearchIndexingService searchIndexingService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private Validator validator;
+
+    @Value("${shop.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${shop.import.max-errors:1000}")
+    private int maxErrors;
+
+    public static boolean isCsv(String contentType) {
+        return contentType != null && contentType.toLowerCase().contains("csv");
+    }
+
+    public ImportReport importProducts(InputStream input, boolean csv) throws Exception {
+        return importRecords(input, csv, new RecordHandler<Product>() {
+            @Override
+            public Product fromJson(String line) throws Exception {
+                return objectMapper.readValue(line, Product.class);
+            }
+
+            @Override
+            public Product fromCsv(List<String> header, List<String> fields) throws Exception {
+                return productFromCsv(header, fields);
+            }
+
+            @Override
+            public void validate(Product product) throws Exception {
+                checkConstraints(product);
+                productService.checkLocalizedProducts(product);
+            }
+
+            @Override
+            public void persist(List<Product> products) {
+                for (Product product : products) {
+                    persistProduct(product);
+                }
+                em.flush();
+                for (Product product : products) {
+                    searchIndexingService.productChanged(product.getId());
+                }
+                // Une seule mise à jour des compteurs par lot
+                shopCounterService.addProducts(products.stream().map(Product::getId).toList());
+            }
+        });
+    }
+
+    public ImportReport importShops(InputStream input, boolean csv) throws Exception {
+        return importRecords(input, csv, new RecordHandler<Shop>() {
+            @Override
+            public Shop fromJson(String line) throws Exception {
+                return objectMapper.readValue(line, Shop.class);
+            }
+
+            @Override
+            public Shop fromCsv(List<String> header, List<String> fields) {
+                Shop shop = new Shop();
+                shop.setName(column(header, fields, "name"));
+                shop.setInVacations(Boolean.parseBoolean(column(header, fields, "inVacations")));
+                return shop;
+            }
+
+            @Override
+            public void validate(Shop shop) throws Exception {
+                checkConstraints(shop);
+            }
+
+            @Override
+            public void persist(List<Shop> shops) {
+                for (Shop shop : shops) {
+                    shop.setId(0);
+                    for (OpeningHoursShop openingHours : shop.getOpeningHours()) {
+                        openingHours.setId(0);
+                    }
+                    em.persist(shop);
+                }
+                em.flush();
+                for (Shop shop : shops) {
+                    searchIndexingService.shopChanged(shop.getId());
+                }
+            }
+        });
+    }
+
+    private <T> ImportReport importRecords(InputStream input, boolean csv, RecordHandler<T> handler) throws Exception {
+        ImportReport report = new ImportReport(maxErrors);
+        List<T> batch = new ArrayList<>(batchSize);
+        List<Long> batchLines = new ArrayList<>(batchSize);
+        List<String> header = null;
+        long lineNumber = 0;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (csv && header == null) {
+                    header = CsvParser.parseLine(line.trim());
+                    continue;
+                }
+
+                T record;
+                try {
+                    record = csv ? handler.fromCsv(header, CsvParser.parseLine(line)) : handler.fromJson(line);
+                    handler.validate(record);
+                } catch (Exception e) {
+                    report.addError(lineNumber, e.getMessage());
+                    continue;
+                }
+
+                batch.add(record);
+                batchLines.add(lineNumber);
+                if (batch.size() >= batchSize) {
+                    writeBatch(batch, batchLines, handler, report);
+                }
+            }
+        }
+        writeBatch(batch, batchLines, handler, report);
+        return report;
+    }
+
+    private <T> void writeBatch(List<T> batch, List<Long> batchLines, RecordHandler<T> handler, ImportReport report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            transaction.executeWithoutResult(status -> handler.persist(batch));
+            report.addImported(batch.size());
+        } catch (Exception batchException) {
+            // Le lot a échoué (clé étrangère, contrainte SQL...) : on rejoue ligne par ligne pour isoler les erreurs
+            for (int i = 0; i < batch.size(); i++) {
+                T record = batch.get(i);
+                try {
+                    transaction.executeWithoutResult(status -> handler.persist(List.of(record)));
+                    report.addImported(1);
+                } catch (Exception e) {
+                    report.addError(batchLines.get(i), rootMessage(e));
+                }
+            }
+        }
+        batch.clear();
+        batchLines.clear();
+        // Avec open-in-view, le contexte de persistance survit aux commits : sans clear, toutes les entités
+        // importées resteraient gérées et la mémoire croîtrait avec la taille du fichier
+        em.clear();
+    }
+
+    private void persistProduct(Product product) {
+        product.setId(0);
+        for (LocalizedProduct localizedProduct : product.getLocalizedProducts()) {
+            localizedProduct.setId(0);
+        }
+        // Références sans chargement : la boutique et les catégories ne sont pas relues
+        if (product.getShop() != null) {
+            product.setShop(em.getReference(Shop.class, product.getShop().getId()));
+        }
+        List<Category> categories = new ArrayList<>();
+        for (Category category : product.getCategories()) {
+            categories.add(em.getReference(Category.class, category.getId()));
+        }
+        product.setCategories(categories);
+        em.persist(product);
+    }
+
+    private Product productFromCsv(List<String> header, List<String> fields) throws Exception {
+        if (!header.contains("price")) {
+            throw new Exception("Missing column price");
+        }
+        String price = column(header, fields, "price");
+        if (price == null || price.isBlank()) {
+            throw new Exception("Missing price");
+        }
+        Product product = new Product();
+        try {
+            product.setPrice(Double.parseDouble(price.trim()));
+        } catch (NumberFormatException e) {
+            throw new Exception("Invalid price: " + price);
+        }
+
+        String shopId = column(header, fields, "shopId");
+        if (shopId != null && !shopId.isEmpty()) {
+            Shop shop = new Shop();
+            shop.setId(Long.parseLong(shopId));
+            product.setShop(shop);
+        }
+
+        String categoryIds = column(header, fields, "categoryIds");
+        if (categoryIds != null && !categoryIds.isEmpty()) {
+            for (String categoryId : categoryIds.split(";")) {
+                Category category = new Category();
+                category.setId(Long.parseLong(categoryId.trim()));
+                product.getCategories().add(category);
+            }
+        }
+
+        // Colonnes name_<LOCALE> / description_<LOCALE>
+        for (int i = 0; i < header.size(); i++) {
+            String column = header.get(i);
+            if (column.startsWith("name_") && i < fields.size() && !fields.get(i).isEmpty()) {
+                String locale = column.substring("name_".length());
+                LocalizedProduct localizedProduct = new LocalizedProduct();
+                localizedProduct.setLocale(locale);
+                localizedProduct.setName(fields.get(i));
+                String description = column(header, fields, "description_" + locale);
+                localizedProduct.setDescription(description == null || description.isEmpty() ? null : description);
+                product.getLocalizedProducts().add(localizedProduct);
+            }
+        }
+        return product;
+    }
+
+    private String column(List<String> header, List<String> fields, String name) {
+        int index = header.indexOf(name);
+        return index >= 0 && index < fields.size() ? fields.get(index) : null;
+    }
+
+    private void checkConstraints(Object record) throws Exception {
+        Set<ConstraintViolation<Object>> violations = validator.validate(record);
+        if (!violations.isEmpty()) {
+            throw new Exception(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .collect(Collectors.joining("; ")));
+        }
+    }
+
+    private String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+
+    private interface RecordHandler<T> {
+        T fromJson(String line) throws Exception;
+
+        T fromCsv(List<String> header, List<String> fields) throws Exception;
+
+        void validate(T record) throws Exception;
+
+        void persist(List<T> records);
+    }
+}
@@ -1,16 +1,46 @@
 package fr.fullstack.shopapp.service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import fr.fullstack.shopapp.model.Category;
 import fr.fullstack.shopapp.model.LocalizedProduct;
 import fr.fullstack.shopapp.model.Product;
+import fr.fullstack.shopapp.model.Shop;
 import fr.fullstack.shopapp.repository.ProductRepository;
+import fr.fullstack.shopapp.repository.ProductSearchRepository;
+import fr.fullstack.shopapp.repository.ProjectionRepository;
+import fr.fullstack.shopapp.repository.RowEstimateRepository;
+import fr.fullstack.shopapp.util.BulkDeleteReport;
+import fr.fullstack.shopapp.util.Cursor;
+import fr.fullstack.shopapp.util.CursorPage;
+import fr.fullstack.shopapp.util.FieldSelection;
+import fr.fullstack.shopapp.util.MergePatch;
+import fr.fullstack.shopapp.util.TotalMode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.OptimisticLockException;
 import jakarta.persistence.PersistenceContext;
+import jakarta.validation.Validator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -21,43 +51,95 @@ public class ProductService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ShopCounterService shopCounterService;
+
+    @Autowired
+    private RowEstimateRepository rowEstimateRepository;
+
+    @Autowired
+    private ProductSearchRepository productSearchRepository;
+
+    @Autowired
+    private ProjectionRepository projectionRepository;
+
+    @Autowired
+    private SearchIndexingService searchIndexingService;
+
+    @Autowired
+    private SearchIndexStatus searchIndexStatus;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
     @Transactional
     public Product createProduct(Product product) throws Exception {
         // Check that product exists at least in french and check name's length
         try {
             checkLocalizedProducts(product);
         } catch (Exception e) {
-            throw new Exception(e.getMessage());
+            throw new Exception(e.getMessage(), e);
         }
 
         try {
             Product newProduct = productRepository.save(product);
             em.flush();
             em.refresh(newProduct);
+            searchIndexingService.reindexProduct(newProduct);
+            shopCounterService.addProducts(List.of(newProduct.getId()));
             return newProduct;
+        } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+            // Conflit de version : propagé tel quel, GlobalExceptionHandler répond 409
+            throw e;
         } catch (Exception e) {
-            throw new Exception(e.getMessage());
+            throw new Exception(e.getMessage(), e);
         }
     }
 
+    @Transactional
     public void deleteProductById(long id) throws Exception {
         try {
             getProduct(id);
-            productRepository.deleteById(id);
+            deleteProducts(List.of(id));
         } catch (Exception e) {
-            throw new Exception(e.getMessage());
+            throw new Exception(e.getMessage(), e);
         }
     }
 
+    @Transactional
+    public BulkDeleteReport deleteProducts(List<Long> ids) {
+        List<Long> existingIds = productRepository.findExistingIds(ids);
+        if (!existingIds.isEmpty()) {
+            shopCounterService.subtractProducts(existingIds);
+            productRepository.deleteCategoryLinks(existingIds);
+            productRepository.deleteLocalizedProducts(existingIds);
+            productRepository.deleteAllByIdInBatch(existingIds);
+            searchIndexingService.productsDeleted(existingIds);
+        }
+        return new BulkDeleteReport(ids, existingIds);
+    }
+
     public Product getProductById(long id) throws Exception {
         try {
             return getProduct(id);
         } catch (Exception e) {
-            throw new Exception(e.getMessage());
+            throw new Exception(e.getMessage(), e);
         }
     }
 
-    public Page<Product> getShopProductList(Optional<Long> shopId, Optional<Long> categoryId, Pageable pageable) {
+    public Optional<String> getProductEtag(long id) {
+        return productRepository.findEtagById(id);
+    }
+
+    public Slice<Product> getShopProductList(
+            Optional<Long> shopId, Optional<Long> categoryId, Pageable pageable, TotalMode total) {
+        if (total != TotalMode.EXACT) {
+            return getShopProductSlice(shopId, categoryId, pageable, total);
+        }
+
         if (shopId.isPresent() && categoryId.isPresent()) {
             return productRepository.findByShopAndCategory(shopId.get(), categoryId.get(), pageable);
         }
@@ -69,17 +151,186 @@ public class ProductService {
         return productRepository.findByOrderByIdAsc(pageable);
     }
 
+    public FieldSelection parseFieldSelection(Optional<String> view, Optional<String> fields) {
+        return FieldSelection.parse(view, fields,
+                ProjectionRepository.PRODUCT_FIELDS, ProjectionRepository.PRODUCT_SUMMARY);
+    }
+
+    // Liste réduite aux champs demandés ; locale limite les traductions renvoyées à une langue (et au français)
+    public Slice<Map<String, Object>> getShopProductProjection(
+            FieldSelection selection,
+            Optional<Long> shopId,
+            Optional<Long> categoryId,
+            Optional<String> locale,
+            Pageable pageable,
+            TotalMode total
+    ) {
+        Slice<Map<String, Object>> slice = projectionRepository.findProducts(
+                selection, shopId, categoryId, locale, pageable);
+        if (total == TotalMode.NONE) {
+            return slice;
+        }
+        long estimate = total == TotalMode.ESTIMATE && shopId.isEmpty() && categoryId.isEmpty()
+                ? rowEstimateRepository.estimateTableRows("products")
+                : -1;
+        if (estimate >= 0) {
+            return TotalMode.estimatedPage(slice, pageable, estimate);
+        }
+        return new PageImpl<>(slice.getContent(), pageable, projectionRepository.countProducts(shopId, categoryId));
+    }
+
+    private Slice<Product> getShopProductSlice(
+            Optional<Long> shopId, Optional<Long> categoryId, Pageable pageable, TotalMode total) {
+        Slice<Product> slice;
+        long estimate;
+
+        if (shopId.isPresent() && categoryId.isPresent()) {
+            slice = productRepository.findSliceByShopAndCategory(shopId.get(), categoryId.get(), pageable);
+            estimate = total == TotalMode.ESTIMATE
+                    ? rowEstimateRepository.estimateQueryRows("SELECT 1 FROM products p WHERE p.shop_id = "
+                            + shopId.get() + " AND p.id IN (SELECT pc.product_id FROM products_categories pc "
+                            + "WHERE pc.category_id = " + categoryId.get() + ")")
+                    : -1;
+        } else if (shopId.isPresent()) {
+            slice = productRepository.findSliceByShop(shopId.get(), pageable);
+            estimate = total == TotalMode.ESTIMATE
+                    ? rowEstimateRepository.estimateQueryRows("SELECT 1 FROM products WHERE shop_id = " + shopId.get())
+                    : -1;
+        } else {
+            slice = productRepository.findSliceByOrderByIdAsc(pageable);
+            estimate = total == TotalMode.ESTIMATE ? rowEstimateRepository.estimateTableRows("products") : -1;
+        }
+
+        // Sans estimation exploitable, on renvoie la Slice plutôt que de relancer un COUNT
+        if (total == TotalMode.NONE || estimate < 0) {
+            return slice;
+        }
+        return TotalMode.estimatedPage(slice, pageable, estimate);
+    }
+
+    public Page<Product> searchProducts(
+            String query,
+            Optional<String> locale,
+            Optional<Long> shopId,
+            Optional<Long> categoryId,
+            Optional<Long> minPrice,
+            Optional<Long> maxPrice,
+            Optional<String> sortBy,
+            Pageable pageable
+    ) {
+        if (!searchIndexStatus.isSearchAvailable()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Search index is being rebuilt");
+        }
+        return productSearchRepository.search(query, locale, shopId, categoryId, minPrice, maxPrice, sortBy, pageable);
+    }
+
+    public CursorPage<Product> getShopProductWindow(
+            Optional<Long> shopId, Optional<Long> categoryId, String after, int size) {
+        ScrollPosition position = Cursor.decode(after, Cursor.SORT_ID);
+        Sort sort = Cursor.sortOf(Cursor.SORT_ID);
+        Limit limit = Limit.of(size);
+        Window<Product> window;
+
+        if (shopId.isPresent() && categoryId.isPresent()) {
+            window = productRepository.findByShopIdAndCategoriesId(shopId.get(), categoryId.get(), position, sort, limit);
+        } else if (shopId.isPresent()) {
+            window = productRepository.findByShopId(shopId.get(), position, sort, limit);
+        } else {
+            window = productRepository.findAllBy(position, sort, limit);
+        }
+        return CursorPage.of(window, Cursor.SORT_ID);
+    }
+
     @Transactional
     public Product updateProduct(Product product) throws Exception {
         try {
-            getProduct(product.getId());
-            return this.createProduct(product);
+            Product currentProduct = getProduct(product.getId());
+            // Sans version fournie, le PUT écrase la version courante (comportement historique)
+            if (product.getVersion() == 0) {
+                product.setVersion(currentProduct.getVersion());
+            }
+            // Retiré des compteurs de sa boutique actuelle, createProduct l'ajoute à ceux de la nouvelle
+            shopCounterService.subtractProducts(List.of(product.getId()));
+            Product updatedProduct = this.createProduct(product);
+            // Une traduction modifiée (même id) ne change pas le produit lui-même : la version est forcée pour l'ETag
+            // (incrémentée au commit, sans SELECT ... FOR UPDATE : @Version couvre déjà les mises à jour concurrentes)
+            em.lock(updatedProduct, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+            return updatedProduct;
+        } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+            // Conflit de version : propagé tel quel, GlobalExceptionHandler répond 409
+            throw e;
+        } catch (Exception e) {
+            throw new Exception(e.getMessage(), e);
+        }
+    }
+
+    // Mise à jour partielle : un changement de prix se limite à un UPDATE de la colonne price (et version),
+    // sans merge ni refresh ; les collections ne sont touchées que si elles figurent dans le patch
+    @Transactional
+    public Product patchProduct(long id, JsonNode patch, String ifMatch) {
+        Product product = productRepository.findById(id).orElseThrow(() ->
+                new ResponseStatusException(HttpStatus.NOT_FOUND, "Product with id " + id + " not found"));
+        ObjectNode changes = MergePatch.prepare(patch, product.getVersion(), ifMatch);
+        JsonNode shop = changes.remove("shop");
+        JsonNode categories = changes.remove("categories");
+        JsonNode localizedProducts = changes.remove("localizedProducts");
+        // Compteurs : uniquement si la boutique ou les catégories changent (retrait avant, ajout après le flush)
+        boolean countersChanged = shop != null || categories != null;
+        if (countersChanged) {
+            shopCounterService.subtractProducts(List.of(id));
+        }
+
+        try {
+            objectMapper.readerForUpdating(product).readValue(changes);
+            // Références sans chargement, comme pour l'import
+            if (shop != null) {
+                product.setShop(shop.isNull() ? null : em.getReference(Shop.class, shop.path("id").asLong()));
+            }
+            if (categories != null) {
+                List<Category> newCategories = new ArrayList<>();
+                if (!categories.isNull()) {
+                    for (JsonNode category : categories) {
+                        newCategories.add(em.getReference(Category.class, category.path("id").asLong()));
+                    }
+                }
+                product.getCategories().clear();
+                product.getCategories().addAll(newCategories);
+            }
+            if (localizedProducts != null) {
+                List<LocalizedProduct> newLocalizedProducts = localizedProducts.isNull() ? List.of()
+                        : objectMapper.convertValue(localizedProducts, new TypeReference<List<LocalizedProduct>>() {});
+                // Les traductions sont remplacées (orphanRemoval supprime les anciennes)
+                for (LocalizedProduct localizedProduct : newLocalizedProducts) {
+                    localizedProduct.setId(0);
+                }
+                product.getLocalizedProducts().clear();
+                product.getLocalizedProducts().addAll(newLocalizedProducts);
+            }
         } catch (Exception e) {
-            throw new Exception(e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid patch: " + e.getMessage());
+        }
+        MergePatch.validate(validator, product);
+        if (localizedProducts != null) {
+            try {
+                checkLocalizedProducts(product);
+            } catch (Exception e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+        }
+
+        em.flush();
+        if (localizedProducts != null) {
+            searchIndexingService.reindexProduct(product);
+        } else {
+            searchIndexingService.productChanged(product.getId());
+        }
+        if (countersChanged) {
+            shopCounterService.addProducts(List.of(id));
         }
+        return product;
     }
 
-    private void checkLocalizedProducts(Product product) throws Exception {
+    void checkLocalizedProducts(Product product) throws Exception {
         Optional<LocalizedProduct> localizedProductFr = product.getLocalizedProducts()
                 .stream().filter(o -> o.getLocale().equals("FR")).findFirst();
 
@@ -0,0 +1,201 @@
+package fr.fullstack.shopapp.service;
+
+import fr.fullstack.shopapp.model.Product;
+import fr.fullstack.shopapp.model.SearchIndexOutboxEvent;
+import fr.fullstack.shopapp.model.Shop;
+import fr.fullstack.shopapp.repository.SearchIndexOutboxRepository;
+import fr.fullstack.shopapp.search.ShopSearchCache;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.search.mapper.orm.Search;
+import org.hibernate.search.mapper.orm.work.SearchIndexingPlan;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Consomme la table search_index_outbox : tous les changements en mode d'indexation "outbox",
+ * les seules réindexations en cascade en mode "sync".
+ * Chaque worker réserve un lot (FOR UPDATE SKIP LOCKED), l'indexe en une requête bulk puis le supprime.
+ * En cas d'échec Elasticsearch, les événements sont replanifiés avec un délai exponentiel
+ * et le worker ralentit (back-pressure) au lieu de marteler un cluster dégradé.
+ */
+@Component
+public class SearchIndexOutboxWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndexOutboxWorker.class);
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private SearchIndexOutboxRepository outboxRepository;
+
+    @Autowired
+    private SearchIndexingService searchIndexingService;
+
+    @Autowired
+    private ShopSearchCache shopSearchCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${shop.search.outbox.workers:2}")
+    private int workers;
+
+    @Value("${shop.search.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${shop.search.outbox.poll-interval-ms:500}")
+    private long pollIntervalMs;
+
+    @Value("${shop.search.outbox.max-retry-delay-ms:60000}")
+    private long maxRetryDelayMs;
+
+    private final AtomicLong indexedEvents = new AtomicLong();
+
+    private final AtomicLong failedBatches = new AtomicLong();
+
+    private ExecutorService executor;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        executor = Executors.newFixedThreadPool(workers);
+        for (int i = 0; i < workers; i++) {
+            executor.submit(this::run);
+        }
+        logger.info("Search index outbox started with {} workers ({} indexing mode)", workers,
+                searchIndexingService.isOutboxMode() ? "outbox" : "sync");
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    public long getIndexedEvents() {
+        return indexedEvents.get();
+    }
+
+    public long getFailedBatches() {
+        return failedBatches.get();
+    }
+
+    private void run() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        long delay = pollIntervalMs;
+
+        while (running) {
+            try {
+                Integer processed = transaction.execute(status -> drainBatch());
+                if (processed != null && processed > 0) {
+                    delay = pollIntervalMs;
+                    continue;
+                }
+                if (processed != null && processed < 0) {
+                    // Échec d'indexation : on espace les tentatives
+                    delay = Math.min(delay * 2, maxRetryDelayMs);
+                } else {
+                    delay = pollIntervalMs;
+                }
+            } catch (Exception e) {
+                logger.warn("Search index outbox polling failed", e);
+                delay = Math.min(delay * 2, maxRetryDelayMs);
+            }
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // Renvoie le nombre d'événements indexés, 0 si la file est vide, une valeur négative en cas d'échec
+    private int drainBatch() {
+        List<SearchIndexOutboxEvent> events = outboxRepository.claimBatch(batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        Set<Long> shopIds = new LinkedHashSet<>();
+        Set<Long> counterShopIds = new LinkedHashSet<>();
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (SearchIndexOutboxEvent event : events) {
+            if (SearchIndexingService.TYPE_SHOP.equals(event.getEntityType())) {
+                shopIds.add(event.getEntityId());
+            } else if (SearchIndexingService.TYPE_SHOP_COUNTERS.equals(event.getEntityType())) {
+                counterShopIds.add(event.getEntityId());
+            } else if (SearchIndexingService.TYPE_PRODUCT.equals(event.getEntityType())) {
+                productIds.add(event.getEntityId());
+            }
+        }
+
+        try {
+            SearchIndexingPlan plan = Search.session(em).indexingPlan();
+            Set<Long> indexedShopIds = new LinkedHashSet<>(shopIds);
+            indexedShopIds.addAll(counterShopIds);
+            for (Long shopId : indexedShopIds) {
+                Shop shop = em.find(Shop.class, shopId);
+                if (shop != null) {
+                    plan.addOrUpdate(shop);
+                } else {
+                    plan.purge(Shop.class, shopId, null);
+                }
+            }
+            for (Long productId : productIds) {
+                Product product = em.find(Product.class, productId);
+                if (product != null) {
+                    plan.addOrUpdate(product);
+                } else {
+                    plan.purge(Product.class, productId, null);
+                }
+            }
+            plan.execute();
+            // Les boutiques ne sont visibles dans l'index qu'à partir d'ici (après son rafraîchissement)
+            if (!shopIds.isEmpty()) {
+                shopSearchCache.invalidate();
+            } else if (!counterShopIds.isEmpty()) {
+                shopSearchCache.invalidateCounters();
+            }
+        } catch (RuntimeException e) {
+            failedBatches.incrementAndGet();
+            logger.warn("Could not index {} outbox events, retrying later: {}", events.size(), e.getMessage());
+            for (SearchIndexOutboxEvent event : events) {
+                event.setAttempts(event.getAttempts() + 1);
+                event.setProcessAfter(Instant.now().plusMillis(retryDelay(event.getAttempts())));
+            }
+            return -events.size();
+        }
+
+        outboxRepository.deleteAllInBatch(events);
+        indexedEvents.addAndGet(events.size());
+        return events.size();
+    }
+
+    private long retryDelay(int attempts) {
+        return Math.min(pollIntervalMs << Math.min(attempts, 16), maxRetryDelayMs);
+    }
+}
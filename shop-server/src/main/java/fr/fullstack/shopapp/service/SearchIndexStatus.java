@@ -0,0 +1,91 @@
+package fr.fullstack.shopapp.service;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * État de la réindexation de masse au démarrage.
+ * Tant que l'index est en cours de construction, les endpoints de recherche répondent 503.
+ */
+@Component
+public class SearchIndexStatus {
+
+    public enum State { READY, PENDING, INDEXING, FAILED }
+
+    private final AtomicLong indexed = new AtomicLong();
+
+    private volatile String error;
+
+    private volatile Instant startedAt;
+
+    private volatile State state = State.READY;
+
+    private volatile long total;
+
+    public boolean isSearchAvailable() {
+        return state != State.PENDING && state != State.INDEXING;
+    }
+
+    public void pending() {
+        state = State.PENDING;
+    }
+
+    public void indexing(long total) {
+        this.total = total;
+        this.indexed.set(0);
+        this.startedAt = Instant.now();
+        this.error = null;
+        this.state = State.INDEXING;
+    }
+
+    public void addIndexed(long increment) {
+        indexed.addAndGet(increment);
+    }
+
+    public void ready() {
+        state = State.READY;
+    }
+
+    public void failed(String error) {
+        this.error = error;
+        this.state = State.FAILED;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getIndexed() {
+        return indexed.get();
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public double getEntitiesPerSecond() {
+        if (startedAt == null) {
+            return 0;
+        }
+        long elapsedMs = Math.max(Duration.between(startedAt, Instant.now()).toMillis(), 1);
+        return indexed.get() * 1000.0 / elapsedMs;
+    }
+
+    public Map<String, Object> getInfo() {
+        Map<String, Object> info = new LinkedHashMap<>();
+        double rate = getEntitiesPerSecond();
+        long remaining = Math.max(total - indexed.get(), 0);
+        info.put("state", state);
+        info.put("indexed", indexed.get());
+        info.put("total", total);
+        info.put("entitiesPerSecond", Math.round(rate * 10) / 10.0);
+        info.put("etaSeconds", state == State.INDEXING && rate > 0 ? Math.round(remaining / rate) : null);
+        info.put("error", error);
+        return info;
+    }
+}
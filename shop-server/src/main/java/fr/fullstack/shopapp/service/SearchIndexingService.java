@@ -0,0 +1,153 @@
+package fr.fullstack.shopapp.service;
+
+import fr.fullstack.shopapp.config.SearchIndexingConfig;
+import fr.fullstack.shopapp.model.Product;
+import fr.fullstack.shopapp.model.SearchIndexOutboxEvent;
+import fr.fullstack.shopapp.model.Shop;
+import fr.fullstack.shopapp.repository.SearchIndexOutboxRepository;
+import fr.fullstack.shopapp.search.ShopSearchCache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.search.mapper.orm.Search;
+import org.hibernate.search.mapper.orm.work.SearchIndexingPlan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Point d'entrée unique des mises à jour de l'index de recherche.
+ * Mode "sync" : indexation Hibernate Search au commit (comportement historique).
+ * Mode "outbox" : le changement est enregistré dans search_index_outbox, dans la transaction d'écriture,
+ * et indexé plus tard par SearchIndexOutboxWorker ; une indisponibilité d'Elasticsearch ne ralentit plus les écritures.
+ * Les réindexations en cascade (produits d'une catégorie ou d'une boutique supprimée) passent par l'outbox dans les deux modes.
+ */
+@Service
+public class SearchIndexingService {
+
+    public static final String TYPE_PRODUCT = "Product";
+
+    public static final String TYPE_SHOP = "Shop";
+
+    // Seuls les compteurs de la boutique ont changé : le cache de recherche n'est invalidé que pour le tri nbProducts
+    public static final String TYPE_SHOP_COUNTERS = "ShopCounters";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private SearchIndexOutboxRepository outboxRepository;
+
+    @Autowired
+    private ShopSearchCache shopSearchCache;
+
+    @Value("${shop.search.indexing-mode:sync}")
+    private String indexingMode;
+
+    public boolean isOutboxMode() {
+        return SearchIndexingConfig.MODE_OUTBOX.equals(indexingMode);
+    }
+
+    // Création, modification ou suppression d'une boutique par l'ORM (déjà suivie par Hibernate Search en mode sync)
+    // En mode outbox, le cache de recherche est invalidé par SearchIndexOutboxWorker une fois la boutique indexée
+    public void shopChanged(long shopId) {
+        if (isOutboxMode()) {
+            outboxRepository.save(new SearchIndexOutboxEvent(TYPE_SHOP, shopId));
+        } else {
+            shopSearchCache.invalidate();
+        }
+    }
+
+    // Boutique modifiée hors ORM (requête native) : Hibernate Search ne peut pas le détecter seul
+    public void reindexShop(Shop shop) {
+        reindex(shop, TYPE_SHOP);
+    }
+
+    // Compteurs nb_products / nb_categories mis à jour par requête native
+    public void shopCountersChanged(Shop shop) {
+        reindex(shop, TYPE_SHOP_COUNTERS);
+    }
+
+    // Création ou suppression d'un produit par l'ORM (déjà suivie par Hibernate Search en mode sync)
+    public void productChanged(long productId) {
+        if (isOutboxMode()) {
+            outboxRepository.save(new SearchIndexOutboxEvent(TYPE_PRODUCT, productId));
+        }
+    }
+
+    // Les traductions ne déclenchent pas la réindexation du produit (dépendance SHALLOW) : on la demande explicitement
+    public void reindexProduct(Product product) {
+        if (isOutboxMode()) {
+            outboxRepository.save(new SearchIndexOutboxEvent(TYPE_PRODUCT, product.getId()));
+        } else {
+            Search.session(em).indexingPlan().addOrUpdate(product);
+        }
+    }
+
+    // Suppressions ensemblistes (requêtes natives) : Hibernate Search ne les voit pas, on retire les documents
+    public void shopsDeleted(Collection<Long> shopIds) {
+        if (!isOutboxMode()) {
+            shopSearchCache.invalidate();
+        }
+        deleted(TYPE_SHOP, Shop.class, shopIds);
+    }
+
+    public void productsDeleted(Collection<Long> productIds) {
+        deleted(TYPE_PRODUCT, Product.class, productIds);
+    }
+
+    // À appeler avant de détacher les produits : leurs champs categoryIds / shopId changent.
+    // Quel que soit le mode, la cascade passe par l'outbox : une suppression touchant des milliers de produits
+    // ne les recharge pas tous au commit, SearchIndexOutboxWorker les réindexe en arrière-plan
+    public void productsOfCategoriesChanged(Collection<Long> categoryIds) {
+        outboxRepository.enqueueProductsOfCategories(categoryIds);
+    }
+
+    public void productsOfShopsChanged(Collection<Long> shopIds) {
+        outboxRepository.enqueueProductsOfShops(shopIds);
+    }
+
+    public Map<String, Object> getOutboxInfo() {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("indexingMode", indexingMode);
+        info.put("pendingEvents", outboxRepository.count());
+        Instant oldest = outboxRepository.findOldestCreatedAt();
+        info.put("lagSeconds", oldest == null ? 0 : Duration.between(oldest, Instant.now()).toSeconds());
+        return info;
+    }
+
+    private void reindex(Shop shop, String type) {
+        if (isOutboxMode()) {
+            outboxRepository.save(new SearchIndexOutboxEvent(type, shop.getId()));
+            return;
+        }
+        if (TYPE_SHOP_COUNTERS.equals(type)) {
+            shopSearchCache.invalidateCounters();
+        } else {
+            shopSearchCache.invalidate();
+        }
+        Search.session(em).indexingPlan().addOrUpdate(shop);
+    }
+
+    private void deleted(String type, Class<?> entityClass, Collection<Long> ids) {
+        if (isOutboxMode()) {
+            List<SearchIndexOutboxEvent> events = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                events.add(new SearchIndexOutboxEvent(type, id));
+            }
+            outboxRepository.saveAll(events);
+        } else {
+            SearchIndexingPlan plan = Search.session(em).indexingPlan();
+            for (Long id : ids) {
+                plan.purge(entityClass, id, null);
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package fr.fullstack.shopapp.service;
+
+import fr.fullstack.shopapp.model.Shop;
+import fr.fullstack.shopapp.repository.ProductRepository;
+import fr.fullstack.shopapp.repository.ShopRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Maintient les colonnes shops.nb_products / shops.nb_categories.
+ * Les compteurs sont incrémentés / décrémentés dans la transaction d'écriture,
+ * et un job de réparation les recalcule en masse.
+ */
+@Service
+public class ShopCounterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShopCounterService.class);
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ShopRepository shopRepository;
+
+    @Autowired
+    private SearchIndexingService searchIndexingService;
+
+    // Produits créés ou rattachés à leur boutique / leurs catégories : à appeler après le flush
+    @Transactional
+    public void addProducts(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        shopRepository.addProductsToCounters(productIds);
+        productRepository.findShopIdsByIds(productIds).forEach(this::reindex);
+    }
+
+    // Produits supprimés ou changeant de boutique / de catégories : à appeler avant la modification
+    @Transactional
+    public void subtractProducts(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        List<Long> shopIds = productRepository.findShopIdsByIds(productIds);
+        shopRepository.subtractProductsFromCounters(productIds);
+        shopIds.forEach(this::reindex);
+    }
+
+    // Catégories supprimées : à appeler avant la suppression des liaisons produits / catégories
+    @Transactional
+    public void subtractCategories(Collection<Long> categoryIds) {
+        if (categoryIds.isEmpty()) {
+            return;
+        }
+        List<Long> shopIds = shopRepository.findShopIdsByCategories(categoryIds);
+        shopRepository.subtractCategoriesFromCounters(categoryIds);
+        shopIds.forEach(this::reindex);
+    }
+
+    @Scheduled(cron = "${shop.counters.repair.cron:0 0 3 * * *}")
+    @Transactional
+    public int repairCounters() {
+        List<Long> staleShopIds = shopRepository.findShopIdsWithStaleCounters();
+        if (staleShopIds.isEmpty()) {
+            return 0;
+        }
+        int updated = shopRepository.repairCounters();
+        staleShopIds.forEach(this::reindex);
+        logger.info("Repaired product/category counters of {} shops", updated);
+        return updated;
+    }
+
+    // Les UPDATE natifs ne sont vus ni par le cache de second niveau ni par Hibernate Search :
+    // la boutique est évincée (maintenant et au commit), rechargée puis réindexée
+    private void reindex(Long shopId) {
+        evict(shopId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(shopId);
+                }
+            });
+        }
+        Shop shop = em.find(Shop.class, shopId);
+        if (shop != null) {
+            em.refresh(shop);
+            searchIndexingService.shopCountersChanged(shop);
+        }
+    }
+
+    private void evict(Long shopId) {
+        em.getEntityManagerFactory().getCache().evict(Shop.class, shopId);
+    }
+}
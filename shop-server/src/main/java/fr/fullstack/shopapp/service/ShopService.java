@@ -1,18 +1,48 @@
 package fr.fullstack.shopapp.service;
 
-import fr.fullstack.shopapp.model.Product;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import fr.fullstack.shopapp.model.OpeningHoursShop;
 import fr.fullstack.shopapp.model.Shop;
+import fr.fullstack.shopapp.repository.ProductRepository;
+import fr.fullstack.shopapp.repository.ProjectionRepository;
+import fr.fullstack.shopapp.repository.RowEstimateRepository;
 import fr.fullstack.shopapp.repository.ShopRepository;
 import fr.fullstack.shopapp.repository.ShopSearchRepository;
+import fr.fullstack.shopapp.search.WeeklyScheduleBinder;
+import fr.fullstack.shopapp.util.BulkDeleteReport;
+import fr.fullstack.shopapp.util.Cursor;
+import fr.fullstack.shopapp.util.CursorPage;
+import fr.fullstack.shopapp.util.FieldSelection;
+import fr.fullstack.shopapp.util.MergePatch;
+import fr.fullstack.shopapp.util.ShopSuggestion;
+import fr.fullstack.shopapp.util.TotalMode;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Window;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.OptimisticLockException;
 import jakarta.persistence.PersistenceContext;
+import jakarta.validation.Validator;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
@@ -27,71 +57,201 @@ public class ShopService {
     @Autowired
     private ShopRepository shopRepository;
 
+    @Autowired
+    private ProductRepository productRepository;
+
     @Autowired
     private ShopSearchRepository shopSearchRepository;
 
+    @Autowired
+    private ProjectionRepository projectionRepository;
+
+    @Autowired
+    private RowEstimateRepository rowEstimateRepository;
+
+    @Autowired
+    private SearchIndexingService searchIndexingService;
+
+    @Autowired
+    private SearchIndexOutboxWorker searchIndexOutboxWorker;
+
+    @Autowired
+    private SearchIndexStatus searchIndexStatus;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Value("${shop.search.suggest.max-size:20}")
+    private int maxSuggestions;
+
+    @Value("${shop.opening-hours.zone:Europe/Paris}")
+    private ZoneId openingHoursZone;
+
     @Transactional
     public Shop createShop(Shop shop) throws Exception {
         try {
             Shop newShop = shopRepository.save(shop);
             em.flush();
             em.refresh(newShop);
+            // Les créneaux d'ouverture ne déclenchent pas la réindexation (dépendance SHALLOW)
+            searchIndexingService.reindexShop(newShop);
             return newShop;
+        } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+            // Conflit de version : propagé tel quel, GlobalExceptionHandler répond 409
+            throw e;
         } catch (Exception e) {
-            throw new Exception(e.getMessage());
+            throw new Exception(e.getMessage(), e);
         }
     }
 
     @Transactional
     public void deleteShopById(long id) throws Exception {
         try {
-            Shop shop = getShop(id);
-            deleteNestedRelations(shop);
-            shopRepository.deleteById(id);
+            getShop(id);
+            deleteShops(List.of(id));
         } catch (Exception e) {
-            throw new Exception(e.getMessage());
+            throw new Exception(e.getMessage(), e);
         }
     }
 
+    // Suppression ensembliste : les produits sont détachés en une seule requête, sans être chargés
+    @Transactional
+    public BulkDeleteReport deleteShops(List<Long> ids) {
+        List<Long> existingIds = shopRepository.findExistingIds(ids);
+        if (!existingIds.isEmpty()) {
+            searchIndexingService.productsOfShopsChanged(existingIds);
+            productRepository.detachFromShops(existingIds);
+            shopRepository.deleteOpeningHours(existingIds);
+            shopRepository.deleteAllByIdInBatch(existingIds);
+            searchIndexingService.shopsDeleted(existingIds);
+        }
+        return new BulkDeleteReport(ids, existingIds);
+    }
+
     public Shop getShopById(long id) throws Exception {
         return getShop(id);
     }
 
+    public Optional<String> getShopEtag(long id) {
+        return shopRepository.findEtagById(id);
+    }
+
     @Transactional
     public Shop updateShop(Shop shop) throws Exception {
         try {
-            getShop(shop.getId());
-            return this.createShop(shop);
+            Shop currentShop = getShop(shop.getId());
+            // Sans version fournie, le PUT écrase la version courante (comportement historique)
+            if (shop.getVersion() == 0) {
+                shop.setVersion(currentShop.getVersion());
+            }
+            Shop updatedShop = this.createShop(shop);
+            // Un créneau modifié (même id) ne change pas la boutique elle-même : la version est forcée pour l'ETag
+            // (incrémentée au commit, sans SELECT ... FOR UPDATE : @Version couvre déjà les mises à jour concurrentes)
+            em.lock(updatedShop, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+            return updatedShop;
+        } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+            // Conflit de version : propagé tel quel, GlobalExceptionHandler répond 409
+            throw e;
         } catch (Exception e) {
-            throw new Exception(e.getMessage());
+            throw new Exception(e.getMessage(), e);
         }
     }
 
-    public Page<Shop> getShopList(
+    // Mise à jour partielle : l'entité chargée (cache de 2nd niveau) est modifiée en place,
+    // Hibernate n'écrit que les colonnes modifiées (@DynamicUpdate) en vérifiant la version
+    @Transactional
+    public Shop patchShop(long id, JsonNode patch, String ifMatch) {
+        Shop shop = shopRepository.findById(id).orElseThrow(() ->
+                new ResponseStatusException(HttpStatus.NOT_FOUND, "Shop with id " + id + " not found"));
+        ObjectNode changes = MergePatch.prepare(patch, shop.getVersion(), ifMatch);
+        // Champs en lecture seule
+        changes.remove(List.of("createdAt", "nbProducts", "nbCategories"));
+        JsonNode openingHours = changes.remove("openingHours");
+
+        try {
+            objectMapper.readerForUpdating(shop).readValue(changes);
+            if (openingHours != null) {
+                List<OpeningHoursShop> newOpeningHours = openingHours.isNull() ? List.of()
+                        : objectMapper.convertValue(openingHours, new TypeReference<List<OpeningHoursShop>>() {});
+                // Les créneaux sont remplacés, pas fusionnés (orphanRemoval supprime les anciens)
+                for (OpeningHoursShop slot : newOpeningHours) {
+                    slot.setId(0);
+                }
+                shop.getOpeningHours().clear();
+                shop.getOpeningHours().addAll(newOpeningHours);
+            }
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid patch: " + e.getMessage());
+        }
+        MergePatch.validate(validator, shop);
+
+        em.flush();
+        if (openingHours != null) {
+            searchIndexingService.reindexShop(shop);
+        } else {
+            searchIndexingService.shopChanged(shop.getId());
+        }
+        return shop;
+    }
+
+    public Slice<Shop> getShopList(
             Optional<String> sortBy,
             Optional<Boolean> inVacations,
             // CORRECTION : Inversion de createdBefore et createdAfter pour matcher le Controller
             Optional<String> createdAfter,
             Optional<String> createdBefore,
             Optional<String> name,
-            Pageable pageable
+            Pageable pageable,
+            TotalMode total,
+            Optional<String> facets,
+            Optional<String> openAt
     ) {
         Optional<LocalDate> afterDate = parseDate(createdAfter);
         Optional<LocalDate> beforeDate = parseDate(createdBefore);
+        Optional<Integer> openAtMinute = parseOpenAt(openAt);
         if ((name.isPresent() && !name.get().trim().isEmpty()) ||
                 inVacations.isPresent() ||
                 afterDate.isPresent() ||
-                beforeDate.isPresent()) {
+                beforeDate.isPresent() ||
+                openAtMinute.isPresent() ||
+                facets.isPresent()) {
 
+            if (!searchIndexStatus.isSearchAvailable()) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Search index is being rebuilt");
+            }
+            if (facets.isPresent()) {
+                return shopSearchRepository.searchWithFacets(
+                        name.orElse(null),
+                        inVacations,
+                        afterDate,
+                        beforeDate,
+                        openAtMinute,
+                        sortBy,
+                        facetInterval(facets.get()),
+                        pageable
+                );
+            }
             return shopSearchRepository.search(
                     name.orElse(null),
                     inVacations,
                     afterDate,
                     beforeDate,
+                    openAtMinute,
                     sortBy,
                     pageable
             );
         }
+        if (total != TotalMode.EXACT) {
+            Slice<Shop> slice = getShopSlice(sortBy, pageable);
+            if (total == TotalMode.NONE) {
+                return slice;
+            }
+            long estimate = rowEstimateRepository.estimateTableRows("shops");
+            return TotalMode.estimatedPage(slice, pageable, estimate >= 0 ? estimate : shopRepository.count());
+        }
         if (sortBy.isPresent() && !sortBy.get().isEmpty()) {
             switch (sortBy.get()) {
                 case "name": return shopRepository.findByOrderByNameAsc(pageable);
@@ -104,11 +264,82 @@ public class ShopService {
         return shopRepository.findByOrderByIdAsc(pageable);
     }
 
+    public FieldSelection parseFieldSelection(Optional<String> view, Optional<String> fields) {
+        return FieldSelection.parse(view, fields, ProjectionRepository.SHOP_FIELDS, ProjectionRepository.SHOP_SUMMARY);
+    }
+
+    // Liste réduite aux champs demandés, lus directement en base
+    public Slice<Map<String, Object>> getShopProjection(
+            FieldSelection selection, Optional<String> sortBy, Pageable pageable, TotalMode total) {
+        Slice<Map<String, Object>> slice = projectionRepository.findShops(selection, sortBy, pageable);
+        switch (total) {
+            case NONE:
+                return slice;
+            case ESTIMATE:
+                long estimate = rowEstimateRepository.estimateTableRows("shops");
+                return TotalMode.estimatedPage(slice, pageable,
+                        estimate >= 0 ? estimate : projectionRepository.countShops());
+            default:
+                return new PageImpl<>(slice.getContent(), pageable, projectionRepository.countShops());
+        }
+    }
+
+    private Slice<Shop> getShopSlice(Optional<String> sortBy, Pageable pageable) {
+        if (sortBy.isPresent() && !sortBy.get().isEmpty()) {
+            switch (sortBy.get()) {
+                case "name": return shopRepository.findSliceByOrderByNameAsc(pageable);
+                case "createdAt": return shopRepository.findSliceByOrderByCreatedAtAsc(pageable);
+                default: return shopRepository.findSliceByOrderByNbProductsAsc(pageable);
+            }
+        }
+
+        return shopRepository.findSliceByOrderByIdAsc(pageable);
+    }
+
+    public CursorPage<Shop> getShopWindow(Optional<String> sortBy, String after, int size) {
+        String sort = Cursor.normalizeSort(sortBy.orElse(null));
+        Window<Shop> window = shopRepository.findAllBy(
+                Cursor.decode(after, sort), Cursor.sortOf(sort), Limit.of(size));
+        return CursorPage.of(window, sort);
+    }
+
+    public List<ShopSuggestion> suggestShops(String prefix, int size) {
+        if (prefix == null || prefix.trim().isEmpty()) {
+            return List.of();
+        }
+        if (!searchIndexStatus.isSearchAvailable()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Search index is being rebuilt");
+        }
+        return shopSearchRepository.suggest(prefix.trim(), Math.min(Math.max(size, 1), maxSuggestions));
+    }
+
+    // Granularité de l'histogramme des dates de création : "month" (par défaut) ou "year"
+    private String facetInterval(String facets) {
+        if (facets.isEmpty() || facets.equals("true") || facets.equals("month")) {
+            return "month";
+        }
+        if (facets.equals("year")) {
+            return "year";
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "facets must be 'month' or 'year'");
+    }
+
     // Cette méthode appelle maintenant celle que nous avons ajoutée au Repository
     public Map<String, Object> getElasticsearchIndexInfo() {
         return shopSearchRepository.getIndexInfo();
     }
 
+    public Map<String, Object> getElasticsearchIndexingStatus() {
+        return searchIndexStatus.getInfo();
+    }
+
+    public Map<String, Object> getElasticsearchOutboxInfo() {
+        Map<String, Object> outboxInfo = searchIndexingService.getOutboxInfo();
+        outboxInfo.put("indexedEvents", searchIndexOutboxWorker.getIndexedEvents());
+        outboxInfo.put("failedBatches", searchIndexOutboxWorker.getFailedBatches());
+        return outboxInfo;
+    }
+
     private Optional<LocalDate> parseDate(Optional<String> dateStr) {
         if (dateStr.isPresent()) {
             try {
@@ -120,17 +351,32 @@ public class ShopService {
         return Optional.empty();
     }
 
+    // "now" ou "<jour>,<HH:mm>" (jour 1 = lundi), converti en minute de la semaine
+    private Optional<Integer> parseOpenAt(Optional<String> openAt) {
+        if (openAt.isEmpty() || openAt.get().trim().isEmpty()) {
+            return Optional.empty();
+        }
+        String value = openAt.get().trim();
+        if (value.equalsIgnoreCase("now")) {
+            LocalDateTime now = LocalDateTime.now(openingHoursZone);
+            return Optional.of(WeeklyScheduleBinder.minuteOfWeek(now.getDayOfWeek(), now.toLocalTime()));
+        }
+        String[] parts = value.split(",");
+        try {
+            if (parts.length == 2) {
+                DayOfWeek day = DayOfWeek.of(Integer.parseInt(parts[0].trim()));
+                LocalTime time = LocalTime.parse(parts[1].trim());
+                return Optional.of(WeeklyScheduleBinder.minuteOfWeek(day, time));
+            }
+        } catch (DateTimeException | NumberFormatException e) {
+            // Format invalide, traité ci-dessous
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "openAt must be 'now' or '<day 1-7>,<HH:mm>'");
+    }
+
     private Shop getShop(Long id) throws Exception {
         return shopRepository.findById(id)
                 .orElseThrow(() -> new Exception("Shop with id " + id + " not found"));
     }
-
-    private void deleteNestedRelations(Shop shop) {
-        List<Product> products = shop.getProducts();
-        for (Product product : products) {
-            product.setShop(null);
-            em.merge(product);
-        }
-        em.flush();
-    }
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package fr.fullstack.shopapp.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Compte rendu d'une suppression en masse : ids supprimés et ids inconnus (ignorés).
+ */
+public class BulkDeleteReport {
+    // Nombre maximal d'ids par requête (taille de la clause IN)
+    public static final int MAX_IDS = 1000;
+
+    private final List<Long> deleted;
+
+    private final List<Long> notFound;
+
+    public BulkDeleteReport(Collection<Long> requested, Collection<Long> deleted) {
+        this.deleted = new ArrayList<>(deleted);
+        this.notFound = new ArrayList<>(requested);
+        this.notFound.removeAll(deleted);
+    }
+
+    public List<Long> getDeleted() {
+        return deleted;
+    }
+
+    public List<Long> getNotFound() {
+        return notFound;
+    }
+}
@@ -0,0 +1,51 @@
+package fr.fullstack.shopapp.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Découpage et écriture de lignes CSV (séparateur virgule, champs entre guillemets, "" pour un guillemet).
+ * Les champs sur plusieurs lignes ne sont pas supportés : un enregistrement = une ligne.
+ */
+public class CsvParser {
+    public static List<String> parseLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // Les retours à la ligne sont remplacés par des espaces pour garder un enregistrement par ligne
+    public static String formatField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String field = value.toString().replace('\r', ' ').replace('\n', ' ');
+        if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0) {
+            return '"' + field.replace("\"", "\"\"") + '"';
+        }
+        return field;
+    }
+}
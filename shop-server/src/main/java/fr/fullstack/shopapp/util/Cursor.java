@@ -0,0 +1,103 @@
+package fr.fullstack.shopapp.util;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Curseur opaque de pagination par clé (keyset) : encode le tri, le dernier id et la dernière clé de tri.
+ * Format avant encodage base64url : "sortBy|id|clé".
+ */
+public class Cursor {
+    public static final String SORT_ID = "id";
+    public static final String SORT_NAME = "name";
+    public static final String SORT_CREATED_AT = "createdAt";
+    public static final String SORT_NB_PRODUCTS = "nbProducts";
+
+    private static final String SEPARATOR = "|";
+
+    public static String normalizeSort(String sortBy) {
+        if (sortBy == null || sortBy.isEmpty()) {
+            return SORT_ID;
+        }
+        switch (sortBy) {
+            case SORT_ID:
+            case SORT_NAME:
+            case SORT_CREATED_AT:
+                return sortBy;
+            default:
+                // Même comportement que la pagination classique : tri par nombre de produits
+                return SORT_NB_PRODUCTS;
+        }
+    }
+
+    public static Sort sortOf(String sortBy) {
+        switch (sortBy) {
+            case SORT_NAME:
+                return Sort.by(Sort.Order.asc("name"), Sort.Order.asc("id"));
+            case SORT_CREATED_AT:
+                return Sort.by(Sort.Order.asc("createdAt"), Sort.Order.asc("id"));
+            case SORT_NB_PRODUCTS:
+                return Sort.by(Sort.Order.desc("nbProducts"), Sort.Order.asc("id"));
+            default:
+                return Sort.by(Sort.Order.asc("id"));
+        }
+    }
+
+    public static ScrollPosition decode(String token, String sortBy) {
+        if (token == null || token.isEmpty()) {
+            return ScrollPosition.keyset();
+        }
+
+        String[] parts;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            parts = raw.split("\\" + SEPARATOR, 3);
+        } catch (IllegalArgumentException e) {
+            throw invalidCursor();
+        }
+        if (parts.length != 3 || !parts[0].equals(sortBy)) {
+            throw invalidCursor();
+        }
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+        try {
+            switch (sortBy) {
+                case SORT_NAME:
+                    keys.put("name", parts[2]);
+                    break;
+                case SORT_CREATED_AT:
+                    keys.put("createdAt", LocalDate.parse(parts[2]));
+                    break;
+                case SORT_NB_PRODUCTS:
+                    keys.put("nbProducts", Long.parseLong(parts[2]));
+                    break;
+                default:
+                    break;
+            }
+            keys.put("id", Long.parseLong(parts[1]));
+        } catch (RuntimeException e) {
+            throw invalidCursor();
+        }
+        return ScrollPosition.forward(keys);
+    }
+
+    public static String encode(String sortBy, ScrollPosition position) {
+        Map<String, Object> keys = ((KeysetScrollPosition) position).getKeys();
+        Object key = SORT_ID.equals(sortBy) ? "" : keys.get(sortBy);
+        String raw = sortBy + SEPARATOR + keys.get("id") + SEPARATOR + (key == null ? "" : key);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ResponseStatusException invalidCursor() {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid pagination cursor");
+    }
+}
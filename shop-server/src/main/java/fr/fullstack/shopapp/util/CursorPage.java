@@ -0,0 +1,44 @@
+package fr.fullstack.shopapp.util;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.data.domain.Window;
+
+import java.util.List;
+
+/**
+ * Réponse paginée par curseur : pas de numéro de page ni de total, seulement le curseur suivant.
+ */
+public class CursorPage<T> {
+    private final List<T> content;
+
+    private final String nextCursor;
+
+    private CursorPage(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public static <T> CursorPage<T> of(Window<T> window, String sortBy) {
+        String nextCursor = window.hasNext() && !window.isEmpty()
+                ? Cursor.encode(sortBy, window.positionAt(window.size() - 1))
+                : null;
+        return new CursorPage<>(window.getContent(), nextCursor);
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public int getNumberOfElements() {
+        return content.size();
+    }
+
+    @JsonProperty("hasNext")
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
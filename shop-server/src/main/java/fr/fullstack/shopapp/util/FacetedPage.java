@@ -0,0 +1,23 @@
+package fr.fullstack.shopapp.util;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Page de résultats de recherche accompagnée des facettes (agrégations) calculées par la même requête.
+ */
+public class FacetedPage<T> extends PageImpl<T> {
+    private final Map<String, Map<String, Long>> facets;
+
+    public FacetedPage(List<T> content, Pageable pageable, long total, Map<String, Map<String, Long>> facets) {
+        super(content, pageable, total);
+        this.facets = facets;
+    }
+
+    public Map<String, Map<String, Long>> getFacets() {
+        return facets;
+    }
+}
@@ -0,0 +1,68 @@
+package fr.fullstack.shopapp.util;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Champs demandés par le client : vue nommée (view=summary|full) ou liste explicite (fields=id,name).
+ * Sans sélection, ou avec view=full, la représentation complète de l'entité est renvoyée.
+ */
+public final class FieldSelection {
+
+    public static final String VIEW_FULL = "full";
+
+    public static final String VIEW_SUMMARY = "summary";
+
+    private static final FieldSelection FULL = new FieldSelection(null);
+
+    // null : représentation complète
+    private final Set<String> fields;
+
+    private FieldSelection(Set<String> fields) {
+        this.fields = fields;
+    }
+
+    // fields l'emporte sur view ; l'ordre des champs demandés est conservé dans la réponse
+    public static FieldSelection parse(
+            Optional<String> view, Optional<String> fields, List<String> allowed, List<String> summary) {
+        if (fields.isPresent() && !fields.get().isBlank()) {
+            Set<String> selected = new LinkedHashSet<>();
+            for (String field : fields.get().split(",")) {
+                String name = field.trim();
+                if (name.isEmpty()) {
+                    continue;
+                }
+                if (!allowed.contains(name)) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "Unknown field '" + name + "', allowed fields: " + String.join(",", allowed));
+                }
+                selected.add(name);
+            }
+            return selected.isEmpty() ? FULL : new FieldSelection(selected);
+        }
+        if (view.isEmpty() || view.get().isBlank() || view.get().equals(VIEW_FULL)) {
+            return FULL;
+        }
+        if (view.get().equals(VIEW_SUMMARY)) {
+            return new FieldSelection(new LinkedHashSet<>(summary));
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "view must be 'summary' or 'full'");
+    }
+
+    public boolean isFull() {
+        return fields == null;
+    }
+
+    public boolean contains(String field) {
+        return fields == null || fields.contains(field);
+    }
+
+    public Set<String> getFields() {
+        return fields;
+    }
+}
@@ -0,0 +1,68 @@
+package fr.fullstack.shopapp.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compte rendu d'un import en masse : nombre de lignes importées / rejetées et erreurs par ligne.
+ * Le détail des erreurs est borné pour que la mémoire ne dépende pas de la taille du fichier.
+ */
+public class ImportReport {
+    private final List<LineError> errors = new ArrayList<>();
+
+    private final int maxErrors;
+
+    private long failed;
+
+    private long imported;
+
+    public ImportReport(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    public void addError(long line, String message) {
+        failed++;
+        if (errors.size() < maxErrors) {
+            errors.add(new LineError(line, message));
+        }
+    }
+
+    public void addImported(long count) {
+        imported += count;
+    }
+
+    public List<LineError> getErrors() {
+        return errors;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public boolean isTruncated() {
+        return failed > errors.size();
+    }
+
+    public static class LineError {
+        private final long line;
+
+        private final String message;
+
+        public LineError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
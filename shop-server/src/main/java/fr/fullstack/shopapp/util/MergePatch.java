@@ -0,0 +1,81 @@
+package fr.fullstack.shopapp.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * JSON Merge Patch (RFC 7396) : seuls les champs présents dans le document sont modifiés,
+ * un champ à null est remis à null.
+ * La version attendue de l'entité est lue dans l'en-tête If-Match ("3", W/"3", ou l'ETag d'un GET) ou, à défaut,
+ * dans le champ "version" du patch.
+ */
+public final class MergePatch {
+
+    public static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    private MergePatch() {
+    }
+
+    // Vérifie la version attendue et renvoie une copie du patch sans les champs non modifiables
+    public static ObjectNode prepare(JsonNode patch, long currentVersion, String ifMatch) {
+        if (patch == null || !patch.isObject()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Patch must be a JSON object");
+        }
+        ObjectNode changes = ((ObjectNode) patch).deepCopy();
+        JsonNode versionField = changes.remove("version");
+        changes.remove("id");
+
+        if (ifMatch != null && !ifMatch.isBlank()) {
+            Long expected = parseIfMatch(ifMatch);
+            if (expected != null && expected != currentVersion) {
+                throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                        "Version " + expected + " is outdated, current version is " + currentVersion);
+            }
+        } else if (versionField != null && !versionField.isNull()) {
+            if (!versionField.canConvertToLong()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "version must be a number");
+            }
+            if (versionField.asLong() != currentVersion) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Version " + versionField.asLong() + " is outdated, current version is " + currentVersion);
+            }
+        }
+        return changes;
+    }
+
+    // Contraintes de l'entité après application du patch (le @Valid du contrôleur ne s'applique pas)
+    public static void validate(Validator validator, Object entity) {
+        Set<ConstraintViolation<Object>> violations = validator.validate(entity);
+        if (!violations.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .collect(Collectors.joining("; ")));
+        }
+    }
+
+    // null pour "*" (toute version acceptée)
+    private static Long parseIfMatch(String ifMatch) {
+        String tag = ifMatch.trim();
+        if (tag.equals("*")) {
+            return null;
+        }
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        tag = tag.replace("\"", "");
+        // ETag des GET ("<version>-<compteurs>...") : seule la version est comparée
+        int separator = tag.indexOf('-');
+        try {
+            return Long.parseLong(separator > 0 ? tag.substring(0, separator) : tag);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "If-Match must contain the entity version");
+        }
+    }
+}
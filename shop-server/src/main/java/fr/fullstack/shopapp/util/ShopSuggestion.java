@@ -0,0 +1,23 @@
+package fr.fullstack.shopapp.util;
+
+/**
+ * Suggestion d'autocomplétion : projetée directement depuis l'index, sans chargement de l'entité Shop.
+ */
+public class ShopSuggestion {
+    private final long id;
+
+    private final String name;
+
+    public ShopSuggestion(long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,34 @@
+package fr.fullstack.shopapp.util;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Mode de calcul du total des listes paginées (paramètre "total").
+ * NONE : Slice sans COUNT, ESTIMATE : estimation du planificateur PostgreSQL, EXACT : COUNT(*).
+ */
+public enum TotalMode {
+    NONE, ESTIMATE, EXACT;
+
+    public static TotalMode from(String value) {
+        if (value == null || value.isEmpty()) {
+            return EXACT;
+        }
+        try {
+            return TotalMode.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Total must be none, estimate or exact");
+        }
+    }
+
+    // Une estimation basse ou périmée (reltuples) ne doit pas marquer la page comme la dernière :
+    // le total couvre au moins les lignes déjà lues, plus une s'il reste une page suivante
+    public static <T> Page<T> estimatedPage(Slice<T> slice, Pageable pageable, long estimate) {
+        long seen = pageable.getOffset() + slice.getNumberOfElements() + (slice.hasNext() ? 1 : 0);
+        return new PageImpl<>(slice.getContent(), pageable, Math.max(estimate, seen));
+    }
+}
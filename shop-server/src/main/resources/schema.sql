@@ -16,4 +16,58 @@ CREATE INDEX IF NOT EXISTS idx_products_categories_product_id ON products_catego
 CREATE INDEX IF NOT EXISTS idx_products_categories_category_id ON products_categories(category_id);;
 CREATE INDEX IF NOT EXISTS idx_shops_opening_hours_shop_id ON shops_opening_hours(shop_id);;
 CREATE INDEX IF NOT EXISTS idx_shops_opening_hours_opening_id ON shops_opening_hours(opening_hours_id);;
-CREATE INDEX IF NOT EXISTS idx_products_localized_product_product_id ON products_localized_product(product_id);;
\ No newline at end of file
+CREATE INDEX IF NOT EXISTS idx_products_localized_product_product_id ON products_localized_product(product_id);;
+
+-- Compteurs dénormalisés de produits / catégories par boutique (remplacent les @Formula)
+-- Remplis dans la même migration : sans cela les boutiques existantes affichent 0 jusqu'au job de réparation
+DO $$
+BEGIN
+    IF NOT EXISTS (
+        SELECT 1 FROM information_schema.columns
+        WHERE table_name = 'shops' AND column_name = 'nb_products'
+    ) THEN
+ALTER TABLE shops ADD COLUMN nb_products bigint NOT NULL DEFAULT 0;
+ALTER TABLE shops ADD COLUMN IF NOT EXISTS nb_categories bigint NOT NULL DEFAULT 0;
+UPDATE shops s SET nb_products = c.nb_products, nb_categories = c.nb_categories
+FROM (SELECT p.shop_id, COUNT(DISTINCT p.id) AS nb_products, COUNT(DISTINCT pc.category_id) AS nb_categories
+      FROM products p LEFT JOIN products_categories pc ON pc.product_id = p.id
+      WHERE p.shop_id IS NOT NULL GROUP BY p.shop_id) c
+WHERE s.id = c.shop_id;
+END IF;
+END $$;;
+ALTER TABLE shops ADD COLUMN IF NOT EXISTS nb_categories bigint NOT NULL DEFAULT 0;;
+CREATE INDEX IF NOT EXISTS idx_shops_nb_products ON shops(nb_products DESC, id);;
+
+-- Version pour le verrouillage optimiste (PATCH / If-Match) et les ETag
+ALTER TABLE shops ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;;
+ALTER TABLE products ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;;
+ALTER TABLE categories ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;;
+
+-- Index de pagination par curseur (clé de tri + id)
+CREATE INDEX IF NOT EXISTS idx_shops_name_id ON shops(name, id);;
+CREATE INDEX IF NOT EXISTS idx_shops_created_at_id ON shops(created_at, id);;
+CREATE INDEX IF NOT EXISTS idx_products_shop_id_id ON products(shop_id, id);;
+
+-- Allocation des ids par blocs de 50 (doit correspondre a hibernate.id.sequence.default_allocation_size)
+ALTER SEQUENCE IF EXISTS hibernate_sequence INCREMENT BY 50;;
+
+-- File d'attente (outbox) des changements a indexer dans Elasticsearch
+CREATE TABLE IF NOT EXISTS search_index_outbox (
+    id bigserial PRIMARY KEY,
+    entity_type varchar(64) NOT NULL,
+    entity_id bigint NOT NULL,
+    attempts int NOT NULL DEFAULT 0,
+    created_at timestamp with time zone NOT NULL DEFAULT now(),
+    process_after timestamp with time zone NOT NULL DEFAULT now()
+);;
+CREATE INDEX IF NOT EXISTS idx_search_index_outbox_process_after ON search_index_outbox(process_after, id);;
+
+-- Point de reprise de la reindexation de masse au demarrage
+CREATE TABLE IF NOT EXISTS search_index_checkpoint (
+    index_name varchar(64) PRIMARY KEY,
+    last_id bigint NOT NULL DEFAULT 0,
+    completed boolean NOT NULL DEFAULT false,
+    updated_at timestamp with time zone NOT NULL DEFAULT now()
+);;
+-- Version du mapping de l'index : un point de reprise d'une autre version force la reconstruction
+ALTER TABLE search_index_checkpoint ADD COLUMN IF NOT EXISTS mapping_version int NOT NULL DEFAULT 0;;
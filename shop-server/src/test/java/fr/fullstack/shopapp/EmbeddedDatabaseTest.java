@@ -0,0 +1,78 @@
+package fr.fullstack.shopapp;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.Statement;
+
+/**
+ * Base des tests MockMvc sur l'application complète : PostgreSQL embarqué (schema.sql et requêtes natives
+ * propres à PostgreSQL), démarré une seule fois pour toute la suite, et index Lucene temporaire.
+ * Jeu de données commun : une boutique de 6 produits (une catégorie et une traduction FR chacun).
+ */
+@SpringBootTest(properties = {
+        "shop.search.backend=lucene",
+        "elasticsearch.reindex.on.startup=false"
+})
+@AutoConfigureMockMvc
+public abstract class EmbeddedDatabaseTest {
+
+    protected static final long SHOP_ID = 10;
+
+    protected static final int PRODUCTS = 6;
+
+    // Ids du jeu de données : 20 à 25 pour les produits, 30 à 35 pour leurs traductions
+    protected static final long FIRST_PRODUCT_ID = 20;
+
+    private static EmbeddedPostgres postgres;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws Exception {
+        EmbeddedPostgres database = start();
+        registry.add("spring.datasource.url", () -> database.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+        String indexDirectory = Files.createTempDirectory("shop-test-index").toString();
+        registry.add("shop.search.lucene.directory", () -> indexDirectory);
+    }
+
+    // Schéma de sql/create_tables.sql (comme docker-compose), puis le jeu de données commun
+    private static synchronized EmbeddedPostgres start() throws Exception {
+        if (postgres != null) {
+            return postgres;
+        }
+        EmbeddedPostgres database = EmbeddedPostgres.builder().start();
+        try (Connection connection = database.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            ScriptUtils.executeSqlScript(connection, new FileSystemResource("sql/create_tables.sql"));
+            statement.execute("CREATE SEQUENCE hibernate_sequence START WITH 1000 INCREMENT BY 50");
+            statement.execute("INSERT INTO categories (id, name) VALUES (1, 'Épicerie'), (2, 'Librairie')");
+            statement.execute("INSERT INTO shops (id, name, created_at, in_vacations) "
+                    + "VALUES (" + SHOP_ID + ", 'Boutique du Port', DATE '2020-01-01', false)");
+            statement.execute("INSERT INTO products (id, price, shop_id) "
+                    + "SELECT 20 + p, 1.5, " + SHOP_ID + " FROM generate_series(0, " + (PRODUCTS - 1) + ") p");
+            statement.execute("INSERT INTO products_categories (product_id, category_id) "
+                    + "SELECT 20 + p, 1 + p % 2 FROM generate_series(0, " + (PRODUCTS - 1) + ") p");
+            statement.execute("INSERT INTO localized_product (id, locale, name, description) "
+                    + "SELECT 30 + p, 'FR', 'Produit ' || p, NULL FROM generate_series(0, " + (PRODUCTS - 1) + ") p");
+            statement.execute("INSERT INTO products_localized_product (product_id, localized_product_id) "
+                    + "SELECT 20 + p, 30 + p FROM generate_series(0, " + (PRODUCTS - 1) + ") p");
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                database.close();
+            } catch (Exception e) {
+                // Arrêt de la JVM : rien à faire de plus
+            }
+        }));
+        postgres = database;
+        return database;
+    }
+}
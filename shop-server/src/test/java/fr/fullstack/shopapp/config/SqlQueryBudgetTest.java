@@ -0,0 +1,113 @@
+package fr.fullstack.shopapp.config;
+
+import fr.fullstack.shopapp.EmbeddedDatabaseTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Nombre exact d'instructions SQL par requête HTTP, lu via HibernateRequestStatistics.REQUEST_ATTRIBUTE,
+ * et signalement d'un N+1 par le budget @SqlQueryBudget.
+ */
+@SpringBootTest(properties = {
+        "shop.search.backend=lucene",
+        "elasticsearch.reindex.on.startup=false",
+        "shop.sql.budget.mode=log",
+        "shop.sql.n-plus-one.threshold=5"
+})
+@Import(SqlQueryBudgetTest.NPlusOneController.class)
+class SqlQueryBudgetTest extends EmbeddedDatabaseTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void productListOfShopRunsFixedNumberOfStatements() throws Exception {
+        // Cache de second niveau vide : les collections sont lues en base
+        entityManagerFactory.getCache().evictAll();
+
+        MvcResult result = mockMvc.perform(get("/api/v1/products")
+                        .param("shopId", String.valueOf(SHOP_ID))
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // Page (boutique par jointure), COUNT, puis catégories et traductions de toute la page par lots
+        HibernateRequestStatistics statistics = statisticsOf(result);
+        assertThat(statistics.getQueries()).isEqualTo(4);
+        assertThat(statistics.getStatements().values()).allMatch(executions -> executions == 1);
+        assertThat(statistics.isOverBudget()).isFalse();
+    }
+
+    @Test
+    void budgetFlagsNPlusOne() throws Exception {
+        MvcResult result = mockMvc.perform(get("/test/shops/{id}/prices", SHOP_ID))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // 1 requête pour les ids, puis 1 par produit : au-delà du budget de 3, même instruction répétée 6 fois
+        HibernateRequestStatistics statistics = statisticsOf(result);
+        assertThat(statistics.getQueries()).isEqualTo(1 + PRODUCTS);
+        assertThat(statistics.isOverBudget()).isTrue();
+        assertThat(statistics.getStatements().values()).contains(PRODUCTS);
+
+        String handler = "NPlusOneController#pricesOfShop";
+        assertThat(meterRegistry.get("shop.sql.budget.exceeded").tag("handler", handler).counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("shop.sql.n-plus-one").tag("handler", handler).counter().count())
+                .isEqualTo(1);
+    }
+
+    private static HibernateRequestStatistics statisticsOf(MvcResult result) {
+        Object statistics = result.getRequest().getAttribute(HibernateRequestStatistics.REQUEST_ATTRIBUTE);
+        assertThat(statistics).isInstanceOf(HibernateRequestStatistics.class);
+        return (HibernateRequestStatistics) statistics;
+    }
+
+    // N+1 volontaire : une requête par produit au lieu d'une seule pour toute la boutique
+    @RestController
+    static class NPlusOneController {
+
+        @PersistenceContext
+        private EntityManager em;
+
+        @GetMapping("/test/shops/{id}/prices")
+        @SqlQueryBudget(3)
+        public List<Long> pricesOfShop(@PathVariable long id) {
+            List<Long> productIds = em.createQuery(
+                            "SELECT p.id FROM Product p WHERE p.shop.id = :shopId ORDER BY p.id", Long.class)
+                    .setParameter("shopId", id)
+                    .getResultList();
+            List<Long> prices = new ArrayList<>();
+            for (Long productId : productIds) {
+                prices.add(em.createQuery("SELECT p.price FROM Product p WHERE p.id = :id", Long.class)
+                        .setParameter("id", productId)
+                        .getSingleResult());
+            }
+            return prices;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package fr.fullstack.shopapp.controller;
+
+import fr.fullstack.shopapp.EmbeddedDatabaseTest;
+import fr.fullstack.shopapp.util.BulkDeleteReport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Paramètre ids des suppressions en masse absent, invalide ou trop long : 400 et non 500.
+ */
+class BulkDeleteValidationTest extends EmbeddedDatabaseTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void missingIdsIsBadRequest() throws Exception {
+        for (String path : new String[]{"/api/v1/shops", "/api/v1/products", "/api/v1/categories"}) {
+            mockMvc.perform(delete(path)).andExpect(status().isBadRequest());
+        }
+    }
+
+    @Test
+    void nonNumericIdsIsBadRequest() throws Exception {
+        mockMvc.perform(delete("/api/v1/products").param("ids", "abc")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void tooManyIdsIsBadRequest() throws Exception {
+        String ids = LongStream.rangeClosed(1, BulkDeleteReport.MAX_IDS + 1)
+                .mapToObj(String::valueOf)
+                .collect(Collectors.joining(","));
+        for (String path : new String[]{"/api/v1/shops", "/api/v1/products", "/api/v1/categories"}) {
+            mockMvc.perform(delete(path).param("ids", ids)).andExpect(status().isBadRequest());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package fr.fullstack.shopapp.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.fullstack.shopapp.EmbeddedDatabaseTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Export du catalogue d'une boutique, en NDJSON et en CSV.
+ * Paquets de 4 produits : les 6 produits du jeu de données passent par deux paquets (et deux session.clear()).
+ */
+@SpringBootTest(properties = {
+        "shop.search.backend=lucene",
+        "elasticsearch.reindex.on.startup=false",
+        "shop.export.clear-interval=4"
+})
+class ProductExportTest extends EmbeddedDatabaseTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void exportsShopAsNdjson() throws Exception {
+        List<String> lines = export("ndjson");
+
+        assertThat(lines).hasSize(PRODUCTS);
+        for (int p = 0; p < PRODUCTS; p++) {
+            JsonNode product = objectMapper.readTree(lines.get(p));
+            assertThat(product.get("id").asLong()).isEqualTo(FIRST_PRODUCT_ID + p);
+            assertThat(product.get("price").decimalValue()).isEqualByComparingTo("1.50");
+            assertThat(product.get("shopId").asLong()).isEqualTo(SHOP_ID);
+            assertThat(product.get("categoryIds")).hasSize(1);
+            assertThat(product.get("categoryIds").get(0).asLong()).isEqualTo(1 + p % 2);
+            assertThat(product.get("localizedProducts")).hasSize(1);
+            assertThat(product.get("localizedProducts").get(0).get("locale").asText()).isEqualTo("FR");
+            assertThat(product.get("localizedProducts").get(0).get("name").asText()).isEqualTo("Produit " + p);
+        }
+    }
+
+    @Test
+    void exportsShopAsCsv() throws Exception {
+        List<String> lines = export("csv");
+
+        assertThat(lines).hasSize(1 + PRODUCTS);
+        assertThat(lines.get(0)).isEqualTo("id,price,shopId,categoryIds,name_FR,description_FR,name_EN,description_EN");
+        for (int p = 0; p < PRODUCTS; p++) {
+            assertThat(lines.get(1 + p)).isEqualTo(
+                    (FIRST_PRODUCT_ID + p) + ",1.50," + SHOP_ID + "," + (1 + p % 2) + ",Produit " + p + ",,,");
+        }
+    }
+
+    // StreamingResponseBody : le corps est écrit après le retour du contrôleur, d'où le dispatch asynchrone
+    private List<String> export(String format) throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/v1/products/export")
+                        .param("shopId", String.valueOf(SHOP_ID))
+                        .param("format", format))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn();
+        return result.getResponse().getContentAsString(StandardCharsets.UTF_8).lines().toList();
+    }
+}
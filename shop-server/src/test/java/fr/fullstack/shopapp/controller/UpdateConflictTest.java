@@ -0,0 +1,40 @@
+package fr.fullstack.shopapp.controller;
+
+import fr.fullstack.shopapp.EmbeddedDatabaseTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * PUT avec une version périmée : 409 (GlobalExceptionHandler), et non 500 via l'enveloppe des services.
+ * La mise à jour est refusée, le jeu de données commun reste inchangé.
+ */
+class UpdateConflictTest extends EmbeddedDatabaseTest {
+
+    private static final long STALE_VERSION = 7;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void staleShopVersionIsConflict() throws Exception {
+        String shop = "{\"id\":" + SHOP_ID + ",\"version\":" + STALE_VERSION
+                + ",\"name\":\"Boutique du Port\",\"inVacations\":false,\"openingHours\":[]}";
+        mockMvc.perform(put("/api/v1/shops").contentType(MediaType.APPLICATION_JSON).content(shop))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void staleProductVersionIsConflict() throws Exception {
+        long id = FIRST_PRODUCT_ID + 1;
+        String product = "{\"id\":" + id + ",\"version\":" + STALE_VERSION + ",\"price\":1.5"
+                + ",\"shop\":{\"id\":" + SHOP_ID + "},\"categories\":[{\"id\":2}]"
+                + ",\"localizedProducts\":[{\"id\":31,\"locale\":\"FR\",\"name\":\"Produit 1\"}]}";
+        mockMvc.perform(put("/api/v1/products").contentType(MediaType.APPLICATION_JSON).content(product))
+                .andExpect(status().isConflict());
+    }
+}